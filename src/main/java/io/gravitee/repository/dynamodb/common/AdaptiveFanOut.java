@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.AmazonServiceException;
+import io.gravitee.repository.exceptions.TechnicalException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Run one DynamoDB request per key on a shared executor, with a bounded number of requests in flight.
+ * The bound is shared by all the callers. It is halved each time a request is throttled, the throttled key
+ * being retried, and it grows back by one after as many successful requests as the current bound.
+ *
+ * @author GraviteeSource Team
+ */
+public class AdaptiveFanOut {
+
+    private static final Set<String> THROTTLING_ERROR_CODES = new HashSet<>(Arrays.asList(
+            "ProvisionedThroughputExceededException", "ThrottlingException", "RequestLimitExceeded"));
+
+    private final ExecutorService executor;
+    private final int maxConcurrency;
+    private final int maxAttempts;
+
+    private int concurrency;
+    private int inFlight;
+    private int successes;
+
+    /**
+     * @param maxConcurrency maximum number of requests running at the same time
+     * @param maxAttempts maximum number of attempts for a throttled key
+     */
+    public AdaptiveFanOut(ExecutorService executor, int maxConcurrency, int maxAttempts) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be greater than 0");
+        }
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.concurrency = maxConcurrency;
+    }
+
+    /**
+     * Run the request for each key and wait for all of them.
+     * The request is called concurrently, it must merge its results into a thread-safe collection.
+     * When a request fails, no other request is started and the running ones are awaited before throwing, so that
+     * none of them has an effect after this method returns.
+     */
+    public <K> void forEach(Collection<K> keys, Consumer<K> request) throws TechnicalException {
+        Deque<K> pending = new ArrayDeque<>(keys);
+        Map<K, Integer> attempts = new HashMap<>();
+        CompletionService<K> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<K>, K> running = new HashMap<>();
+        TechnicalException failure = null;
+        try {
+            while (!pending.isEmpty() || !running.isEmpty()) {
+                // block only when nothing is running, otherwise wait for a completion below
+                while (!pending.isEmpty() && (running.isEmpty() ? acquire() : tryAcquire())) {
+                    K key = pending.poll();
+                    try {
+                        running.put(completion.submit(() -> run(key, request)), key);
+                    } catch (RejectedExecutionException e) {
+                        release(false);
+                        failure = new TechnicalException("Unable to query DynamoDB", e);
+                        pending.clear();
+                    }
+                }
+                if (running.isEmpty()) {
+                    break;
+                }
+
+                Future<K> done = completion.take();
+                K key = running.remove(done);
+                try {
+                    done.get();
+                } catch (ExecutionException e) {
+                    if (failure != null) {
+                        continue;
+                    }
+                    if (!isThrottling(e.getCause()) || attempts.merge(key, 1, Integer::sum) >= maxAttempts) {
+                        failure = new TechnicalException("An error occurs while querying DynamoDB", e.getCause());
+                        pending.clear();
+                    } else {
+                        pending.add(key);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            running.keySet().forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while querying DynamoDB", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return the current bound of requests in flight
+     */
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    private <K> K run(K key, Consumer<K> request) {
+        boolean throttled = false;
+        try {
+            request.accept(key);
+            return key;
+        } catch (RuntimeException e) {
+            throttled = isThrottling(e);
+            throw e;
+        } finally {
+            release(throttled);
+        }
+    }
+
+    private synchronized boolean acquire() throws InterruptedException {
+        while (inFlight >= concurrency) {
+            wait();
+        }
+        inFlight++;
+        return true;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (inFlight >= concurrency) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    private synchronized void release(boolean throttled) {
+        inFlight--;
+        if (throttled) {
+            concurrency = Math.max(1, concurrency / 2);
+            successes = 0;
+        } else if (concurrency < maxConcurrency && ++successes >= concurrency) {
+            concurrency++;
+            successes = 0;
+        }
+        notifyAll();
+    }
+
+    private static boolean isThrottling(Throwable e) {
+        return e instanceof AmazonServiceException &&
+                THROTTLING_ERROR_CODES.contains(((AmazonServiceException) e).getErrorCode());
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import java.util.List;
+
+/**
+ * A page of results read from a position given by an opaque cursor.
+ *
+ * @author GraviteeSource Team
+ */
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String cursor;
+    private final long totalElements;
+
+    public CursorPage(List<T> content, String cursor, long totalElements) {
+        this.content = content;
+        this.cursor = cursor;
+        this.totalElements = totalElements;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the cursor to read the next page from, null if this page is the last one
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import io.gravitee.repository.exceptions.TechnicalException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Load items by primary key with BatchGetItem requests of at most 100 keys, run in parallel.
+ * Duplicate keys are requested once, and the keys left unprocessed by DynamoDB are requested again after a
+ * randomized exponential backoff.
+ *
+ * @author GraviteeSource Team
+ */
+public class DynamoDBBatchLoader {
+
+    // a batch get request accepts at most 100 keys
+    private static final int BATCH_GET_SIZE = 100;
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private final DynamoDBMapper mapper;
+    private final AmazonDynamoDB dynamo;
+    private final ExecutorService executor;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final Map<Class<?>, String> tableNames = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxAttempts max number of requests sent for a chunk of keys, before giving up on its unprocessed keys
+     * @param backoffMillis base delay before requesting the unprocessed keys again, doubled on each attempt
+     */
+    public DynamoDBBatchLoader(DynamoDBMapper mapper, AmazonDynamoDB dynamo, ExecutorService executor,
+                               int maxAttempts, long backoffMillis) {
+        this.mapper = mapper;
+        this.dynamo = dynamo;
+        this.executor = executor;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * @param clazz the mapped class of the items
+     * @param keys objects of the mapped class with only their primary key set
+     * @return the items found, in no particular order
+     */
+    public <T> List<T> load(Class<T> clazz, Collection<T> keys) throws TechnicalException {
+        List<T> result = new ArrayList<>(keys == null ? 0 : keys.size());
+        load(clazz, keys, result::addAll);
+        return result;
+    }
+
+    /**
+     * Same as {@link #load(Class, Collection)}, but only read the given attributes, e.g. to leave out large ones.
+     *
+     * @param attributes the attributes to read, the key attributes are always read
+     */
+    public <T> List<T> load(Class<T> clazz, Collection<T> keys, Collection<String> attributes) throws TechnicalException {
+        List<T> result = new ArrayList<>(keys == null ? 0 : keys.size());
+        load(clazz, keys, attributes, result::addAll);
+        return result;
+    }
+
+    /**
+     * Same as {@link #load(Class, Collection)}, but hand the items over as soon as each chunk is loaded.
+     *
+     * @param consumer called on the caller thread with the items of each chunk, in completion order
+     */
+    public <T> void load(Class<T> clazz, Collection<T> keys, Consumer<List<T>> consumer) throws TechnicalException {
+        load(clazz, keys, null, consumer);
+    }
+
+    private <T> void load(Class<T> clazz, Collection<T> keys, Collection<String> attributes,
+                          Consumer<List<T>> consumer) throws TechnicalException {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        DynamoDBMapperTableModel<T> tableModel = mapper.getTableModel(clazz);
+        String tableName = tableNames.computeIfAbsent(clazz, c -> mapper.generateCreateTableRequest(c).getTableName());
+
+        Set<Map<String, AttributeValue>> uniqueKeys = new LinkedHashSet<>();
+        keys.forEach(key -> uniqueKeys.add(tableModel.convertKey(key)));
+        List<Map<String, AttributeValue>> keyList = new ArrayList<>(uniqueKeys);
+        KeysAndAttributes projection = projection(tableModel, attributes);
+
+        CompletionService<List<T>> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<List<T>>> futures = new ArrayList<>();
+        for (int i = 0; i < keyList.size(); i += BATCH_GET_SIZE) {
+            List<Map<String, AttributeValue>> chunk = keyList.subList(i, Math.min(i + BATCH_GET_SIZE, keyList.size()));
+            futures.add(completionService.submit(() -> loadChunk(tableModel, tableName, projection, chunk)));
+        }
+
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                consumer.accept(completionService.take().get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while loading " + clazz.getSimpleName(), e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new TechnicalException("An error occurs while loading " + clazz.getSimpleName(), e.getCause());
+        }
+    }
+
+    private <T> List<T> loadChunk(DynamoDBMapperTableModel<T> tableModel, String tableName, KeysAndAttributes projection,
+                                  List<Map<String, AttributeValue>> chunk) throws InterruptedException {
+        List<T> items = new ArrayList<>(chunk.size());
+        Map<String, KeysAndAttributes> requestItems = Collections.singletonMap(tableName, new KeysAndAttributes().
+                withProjectionExpression(projection.getProjectionExpression()).
+                withExpressionAttributeNames(projection.getExpressionAttributeNames()).
+                withKeys(chunk));
+        for (int attempt = 1; ; attempt++) {
+            BatchGetItemResult result = dynamo.batchGetItem(new BatchGetItemRequest().withRequestItems(requestItems));
+            List<Map<String, AttributeValue>> responses = result.getResponses().get(tableName);
+            if (responses != null) {
+                responses.forEach(item -> items.add(tableModel.unconvert(item)));
+            }
+
+            requestItems = result.getUnprocessedKeys();
+            if (requestItems == null || requestItems.isEmpty()) {
+                return items;
+            }
+            if (attempt >= maxAttempts) {
+                throw new IllegalStateException(String.format("%d keys of %s still unprocessed after %d attempts",
+                        requestItems.get(tableName).getKeys().size(), tableName, attempt));
+            }
+            Thread.sleep(backoff(attempt));
+        }
+    }
+
+    /**
+     * Every attribute is aliased, the names of many attributes being reserved words.
+     */
+    private static KeysAndAttributes projection(DynamoDBMapperTableModel<?> tableModel, Collection<String> attributes) {
+        KeysAndAttributes projection = new KeysAndAttributes();
+        if (attributes == null) {
+            return projection;
+        }
+        Set<String> projected = new LinkedHashSet<>();
+        tableModel.keys().forEach(key -> projected.add(key.name()));
+        projected.addAll(attributes);
+
+        Map<String, String> names = new HashMap<>();
+        StringJoiner expression = new StringJoiner(", ");
+        for (String attribute : projected) {
+            String alias = "#p" + names.size();
+            names.put(alias, attribute);
+            expression.add(alias);
+        }
+        return projection.
+                withProjectionExpression(expression.toString()).
+                withExpressionAttributeNames(names);
+    }
+
+    /**
+     * Full jitter: a random delay up to the exponential backoff, so that throttled chunks do not retry together.
+     */
+    private long backoff(int attempt) {
+        long max = Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(attempt - 1, 16));
+        return max <= 0 ? 0 : ThreadLocalRandom.current().nextLong(max + 1);
+    }
+}
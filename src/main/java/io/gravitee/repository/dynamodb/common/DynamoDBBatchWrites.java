@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import io.gravitee.repository.exceptions.TechnicalException;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Batch writes which fail instead of silently dropping the items DynamoDB could not write.
+ * The mapper already retries the unprocessed items, a failed batch is only returned once it gave up.
+ *
+ * @author GraviteeSource Team
+ */
+public final class DynamoDBBatchWrites {
+
+    private DynamoDBBatchWrites() {
+    }
+
+    public static void save(DynamoDBMapper mapper, Collection<?> items) throws TechnicalException {
+        if (!items.isEmpty()) {
+            check(mapper.batchSave(items), "write");
+        }
+    }
+
+    public static void delete(DynamoDBMapper mapper, Collection<?> items) throws TechnicalException {
+        if (!items.isEmpty()) {
+            check(mapper.batchDelete(items), "delete");
+        }
+    }
+
+    private static void check(List<FailedBatch> failedBatches, String operation) throws TechnicalException {
+        if (failedBatches.isEmpty()) {
+            return;
+        }
+        int failedItems = failedBatches.stream().
+                flatMap(failedBatch -> failedBatch.getUnprocessedItems().values().stream()).
+                mapToInt(List::size).
+                sum();
+        throw new TechnicalException(String.format("Unable to %s %d items", operation, failedItems),
+                failedBatches.get(0).getException());
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
+import com.amazonaws.services.dynamodbv2.model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replace existing items with a single conditional PutItem, returning the item it replaced.
+ * It saves the read otherwise needed when an update has to know the previous state of the item, e.g. to maintain
+ * an index table.
+ * When the stored state of the item is already known, only the attributes which changed are written.
+ *
+ * @author GraviteeSource Team
+ */
+public class DynamoDBConditionalWriter {
+
+    private final DynamoDBMapper mapper;
+    private final AmazonDynamoDB dynamo;
+    private final Map<Class<?>, String> tableNames = new ConcurrentHashMap<>();
+
+    public DynamoDBConditionalWriter(DynamoDBMapper mapper, AmazonDynamoDB dynamo) {
+        this.mapper = mapper;
+        this.dynamo = dynamo;
+    }
+
+    /**
+     * @param item the new state of the item, attributes left null are removed
+     * @return the item before the update, null if it does not exist, in which case nothing is written
+     */
+    public <T> T replace(Class<T> clazz, T item) {
+        return replace(clazz, item, null, null);
+    }
+
+    /**
+     * Same as {@link #replace(Class, Object)}, only if an attribute of the stored item has the expected value,
+     * e.g. a version attribute incremented on each update to detect concurrent updates.
+     *
+     * @return the item before the update, null if it does not exist or the attribute does not match
+     */
+    public <T> T replace(Class<T> clazz, T item, String expectedAttribute, AttributeValue expectedValue) {
+        DynamoDBMapperTableModel<T> tableModel = mapper.getTableModel(clazz);
+        String tableName = tableNames.computeIfAbsent(clazz, c -> mapper.generateCreateTableRequest(c).getTableName());
+
+        Map<String, String> names = new HashMap<>();
+        names.put("#k", tableModel.hashKey().name());
+        String condition = "attribute_exists(#k)";
+        Map<String, AttributeValue> values = null;
+        if (expectedAttribute != null) {
+            names.put("#e", expectedAttribute);
+            values = new HashMap<>();
+            values.put(":e", expectedValue);
+            condition += " and #e = :e";
+        }
+
+        try {
+            return tableModel.unconvert(dynamo.putItem(new PutItemRequest().
+                    withTableName(tableName).
+                    withItem(tableModel.convert(item)).
+                    withConditionExpression(condition).
+                    withExpressionAttributeNames(names).
+                    withExpressionAttributeValues(values).
+                    withReturnValues(ReturnValue.ALL_OLD)).
+                    getAttributes());
+        } catch (ConditionalCheckFailedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write only the attributes of the item which differ from its previous state, with a single UpdateItem.
+     * The previous state is trusted only if the stored item still has the same value for the guard attribute,
+     * typically an update date, so that the changes of another writer are not silently kept or lost.
+     * <p>
+     * This only holds if every writer of the items changes the guard attribute, including the writes made without
+     * this method, such as an UpdateItem on a few attributes: otherwise the previous state, and anything the caller
+     * derives from it like the entries of an index to remove, is trusted while it is outdated.
+     *
+     * @param previous the stored state of the item, as last read or written
+     * @param item the new state of the item, attributes left null are removed
+     * @param guardAttribute an attribute changed by every update of the item
+     * @return false if the item does not exist or is not in the previous state anymore, in which case nothing is written
+     */
+    public <T> boolean updateChanged(Class<T> clazz, T previous, T item, String guardAttribute) {
+        DynamoDBMapperTableModel<T> tableModel = mapper.getTableModel(clazz);
+        String tableName = tableNames.computeIfAbsent(clazz, c -> mapper.generateCreateTableRequest(c).getTableName());
+        Map<String, AttributeValue> previousAttributes = tableModel.convert(previous);
+        Map<String, AttributeValue> attributes = tableModel.convert(item);
+        Map<String, AttributeValue> key = tableModel.convertKey(item);
+
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        names.put("#k", tableModel.hashKey().name());
+        names.put("#g", guardAttribute);
+        String condition = "attribute_exists(#k) and ";
+        AttributeValue guard = previousAttributes.get(guardAttribute);
+        if (guard == null) {
+            condition += "attribute_not_exists(#g)";
+        } else {
+            values.put(":g", guard);
+            condition += "#g = :g";
+        }
+
+        StringJoiner set = new StringJoiner(", ", "SET ", " ").setEmptyValue("");
+        StringJoiner remove = new StringJoiner(", ", "REMOVE ", "").setEmptyValue("");
+        int i = 0;
+        Set<String> attributeNames = new LinkedHashSet<>(attributes.keySet());
+        attributeNames.addAll(previousAttributes.keySet());
+        for (String name : attributeNames) {
+            if (key.containsKey(name) || Objects.equals(attributes.get(name), previousAttributes.get(name))) {
+                continue;
+            }
+            String alias = "#a" + i;
+            names.put(alias, name);
+            if (attributes.containsKey(name)) {
+                values.put(":a" + i, attributes.get(name));
+                set.add(alias + " = :a" + i);
+            } else {
+                remove.add(alias);
+            }
+            i++;
+        }
+
+        UpdateItemRequest request = new UpdateItemRequest().
+                withTableName(tableName).
+                withKey(key).
+                withConditionExpression(condition).
+                withExpressionAttributeNames(names).
+                withExpressionAttributeValues(values.isEmpty() ? null : values);
+        String update = (set.toString() + remove.toString()).trim();
+        if (!update.isEmpty()) {
+            request.withUpdateExpression(update);
+        }
+        try {
+            dynamo.updateItem(request);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+}
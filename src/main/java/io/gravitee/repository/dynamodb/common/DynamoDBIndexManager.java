@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.*;
+import com.amazonaws.services.dynamodbv2.util.TableUtils;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Create global secondary indexes on existing tables and follow their status.
+ * DynamoDB backfills a new index online: the table stays available while the index is built.
+ *
+ * @author GraviteeSource Team
+ */
+public class DynamoDBIndexManager {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBIndexManager.class);
+
+    private static final long POLL_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    private final AmazonDynamoDB dynamo;
+
+    public DynamoDBIndexManager(AmazonDynamoDB dynamo) {
+        this.dynamo = dynamo;
+    }
+
+    /**
+     * Create the index if it does not exist yet, then wait for it to be active.
+     * Only one index can be created at a time on a table, so indexes must be created one after another.
+     */
+    public void createAndWait(String tableName, List<AttributeDefinition> attributeDefinitions,
+                              GlobalSecondaryIndex index, long timeoutMillis) throws TechnicalException {
+        try {
+            TableUtils.waitUntilActive(dynamo, tableName, (int) timeoutMillis, (int) POLL_INTERVAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while waiting for table " + tableName, e);
+        }
+
+        if (describe(tableName, index.getIndexName()) == null) {
+            LOGGER.info("Creating index {} on table {}", index.getIndexName(), tableName);
+            dynamo.updateTable(new UpdateTableRequest().
+                    withTableName(tableName).
+                    withAttributeDefinitions(attributeDefinitions).
+                    withGlobalSecondaryIndexUpdates(new GlobalSecondaryIndexUpdate().
+                            withCreate(new CreateGlobalSecondaryIndexAction().
+                                    withIndexName(index.getIndexName()).
+                                    withKeySchema(index.getKeySchema()).
+                                    withProjection(index.getProjection()).
+                                    withProvisionedThroughput(index.getProvisionedThroughput()))));
+        }
+        waitUntilActive(tableName, index.getIndexName(), timeoutMillis);
+    }
+
+    public void waitUntilActive(String tableName, String indexName, long timeoutMillis) throws TechnicalException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!isActive(tableName, indexName)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new TechnicalException("Index " + indexName + " of table " + tableName + " is still not active");
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TechnicalException("Interrupted while waiting for index " + indexName, e);
+            }
+        }
+        LOGGER.info("Index {} on table {} is active", indexName, tableName);
+    }
+
+    /**
+     * @return <code>true</code> if the index exists and is fully backfilled
+     */
+    public boolean isActive(String tableName, String indexName) {
+        GlobalSecondaryIndexDescription description = describe(tableName, indexName);
+        return description != null &&
+                IndexStatus.ACTIVE.toString().equals(description.getIndexStatus()) &&
+                !Boolean.TRUE.equals(description.getBackfilling());
+    }
+
+    public boolean areActive(String tableName, Collection<String> indexNames) {
+        return indexNames.stream().allMatch(indexName -> isActive(tableName, indexName));
+    }
+
+    private GlobalSecondaryIndexDescription describe(String tableName, String indexName) {
+        List<GlobalSecondaryIndexDescription> indexes = dynamo.describeTable(tableName).getTable().getGlobalSecondaryIndexes();
+        if (indexes == null) {
+            return null;
+        }
+        return indexes.stream().
+                filter(index -> indexName.equals(index.getIndexName())).
+                findFirst().
+                orElse(null);
+    }
+}
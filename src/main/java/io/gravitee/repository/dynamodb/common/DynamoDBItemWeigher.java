@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Approximate the memory held by an item from its attributes, 2 bytes per character and the length of binaries,
+ * to bound caches holding items whose size varies a lot, such as apis and their definition.
+ *
+ * @author GraviteeSource Team
+ */
+public class DynamoDBItemWeigher<T> implements ToLongFunction<T> {
+
+    private final DynamoDBMapperTableModel<T> tableModel;
+
+    public DynamoDBItemWeigher(DynamoDBMapper mapper, Class<T> clazz) {
+        this.tableModel = mapper.getTableModel(clazz);
+    }
+
+    @Override
+    public long applyAsLong(T item) {
+        return weigh(tableModel.convert(item));
+    }
+
+    private static long weigh(Map<String, AttributeValue> attributes) {
+        long weight = 0;
+        for (Map.Entry<String, AttributeValue> attribute : attributes.entrySet()) {
+            weight += 2L * attribute.getKey().length() + weigh(attribute.getValue());
+        }
+        return weight;
+    }
+
+    private static long weigh(AttributeValue value) {
+        if (value.getS() != null) {
+            return 2L * value.getS().length();
+        }
+        if (value.getN() != null) {
+            return 2L * value.getN().length();
+        }
+        if (value.getB() != null) {
+            return value.getB().remaining();
+        }
+        long weight = weighStrings(value.getSS()) + weighStrings(value.getNS());
+        if (value.getBS() != null) {
+            for (ByteBuffer b : value.getBS()) {
+                weight += b.remaining();
+            }
+        }
+        if (value.getL() != null) {
+            for (AttributeValue element : value.getL()) {
+                weight += weigh(element);
+            }
+        }
+        if (value.getM() != null) {
+            weight += weigh(value.getM());
+        }
+        return Math.max(1, weight);
+    }
+
+    private static long weighStrings(Collection<String> strings) {
+        long weight = 0;
+        if (strings != null) {
+            for (String s : strings) {
+                weight += 2L * s.length();
+            }
+        }
+        return weight;
+    }
+}
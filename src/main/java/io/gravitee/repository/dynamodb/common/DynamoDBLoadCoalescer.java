@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import io.gravitee.repository.exceptions.TechnicalException;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Gather the point lookups of a table arriving within a short window and load them with a single BatchGetItem.
+ * The first caller of a window waits for it to elapse, or for the batch to be full, then loads the batch for all the
+ * callers. Callers looking for the same key share the same result.
+ * When disabled, each lookup is a plain GetItem.
+ *
+ * @author GraviteeSource Team
+ */
+public class DynamoDBLoadCoalescer {
+
+    private final DynamoDBMapper mapper;
+    private final DynamoDBBatchLoader batchLoader;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Map<Class<?>, Batch<?>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param windowMicros max time a lookup waits for other lookups before being sent
+     * @param maxBatchSize number of distinct keys after which a batch is sent without waiting for the window to elapse
+     */
+    public DynamoDBLoadCoalescer(DynamoDBMapper mapper, DynamoDBBatchLoader batchLoader, boolean enabled,
+                                 long windowMicros, int maxBatchSize) {
+        this.mapper = mapper;
+        this.batchLoader = batchLoader;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * @param key an object of the mapped class with only its primary key set
+     * @return the item, null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(Class<T> clazz, T key) throws TechnicalException {
+        if (!enabled) {
+            return mapper.load(key);
+        }
+        Map<String, AttributeValue> keyAttributes = mapper.getTableModel(clazz).convertKey(key);
+        while (true) {
+            Batch<T> batch = (Batch<T>) pending.computeIfAbsent(clazz, c -> new Batch<>());
+            CompletableFuture<T> future;
+            boolean leader;
+            synchronized (batch) {
+                if (batch.closed) {
+                    pending.remove(clazz, batch);
+                    continue;
+                }
+                leader = batch.keys.isEmpty();
+                future = batch.futures.computeIfAbsent(keyAttributes, k -> {
+                    batch.keys.add(key);
+                    return new CompletableFuture<>();
+                });
+                if (batch.keys.size() >= maxBatchSize) {
+                    close(clazz, batch);
+                }
+            }
+            if (leader) {
+                try {
+                    batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (batch) {
+                    close(clazz, batch);
+                }
+                flush(clazz, batch);
+            }
+            return get(future);
+        }
+    }
+
+    private <T> void close(Class<T> clazz, Batch<T> batch) {
+        if (!batch.closed) {
+            batch.closed = true;
+            pending.remove(clazz, batch);
+            batch.full.countDown();
+        }
+    }
+
+    private <T> void flush(Class<T> clazz, Batch<T> batch) {
+        try {
+            DynamoDBMapperTableModel<T> tableModel = mapper.getTableModel(clazz);
+            for (T item : batchLoader.load(clazz, batch.keys)) {
+                CompletableFuture<T> future = batch.futures.get(tableModel.convertKey(item));
+                if (future != null) {
+                    future.complete(item);
+                }
+            }
+            // the keys not returned do not exist
+            batch.futures.values().forEach(future -> future.complete(null));
+        } catch (TechnicalException | RuntimeException e) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private <T> T get(CompletableFuture<T> future) throws TechnicalException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while waiting for a batched load", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TechnicalException) {
+                throw (TechnicalException) e.getCause();
+            }
+            throw new TechnicalException("An error occurs while loading a batch of items", e.getCause());
+        }
+    }
+
+    /**
+     * Lookups gathered in the same window, guarded by the batch monitor until closed.
+     */
+    private static class Batch<T> {
+        private final List<T> keys = new ArrayList<>();
+        private final Map<Map<String, AttributeValue>, CompletableFuture<T>> futures = new HashMap<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private boolean closed;
+    }
+}
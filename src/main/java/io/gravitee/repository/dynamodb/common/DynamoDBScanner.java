@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+
+import java.util.stream.Stream;
+
+/**
+ * Scan whole tables as lazily pulled streams, one page at a time, so that reading a large table runs in constant
+ * memory: a page is only requested when the stream reaches it and is not kept once consumed.
+ *
+ * @author GraviteeSource Team
+ */
+public class DynamoDBScanner {
+
+    private final DynamoDBMapper mapper;
+    private final int pageSize;
+
+    /**
+     * @param pageSize max number of items read by each scan request, 0 to let DynamoDB fill pages of up to 1 MB
+     */
+    public DynamoDBScanner(DynamoDBMapper mapper, int pageSize) {
+        this.mapper = mapper;
+        this.pageSize = pageSize;
+    }
+
+    public <T> Stream<T> scan(Class<T> clazz) {
+        return scan(clazz, new DynamoDBScanExpression());
+    }
+
+    public <T> Stream<T> scan(Class<T> clazz, DynamoDBScanExpression scanExpression) {
+        if (pageSize > 0) {
+            scanExpression.setLimit(pageSize);
+        }
+        return DynamoDBStreams.stream(mapper.scan(clazz, scanExpression, DynamoDBStreams.ITERATION_ONLY_CONFIG));
+    }
+}
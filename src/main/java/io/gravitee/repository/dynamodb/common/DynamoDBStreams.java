@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy.ITERATION_ONLY;
+
+/**
+ * Helpers to read query and scan results as lazily pulled streams.
+ *
+ * @author GraviteeSource Team
+ */
+public final class DynamoDBStreams {
+
+    /**
+     * Mapper configuration whose paginated lists load pages on demand and never keep them.
+     */
+    public static final DynamoDBMapperConfig ITERATION_ONLY_CONFIG = DynamoDBMapperConfig.builder().
+            withPaginationLoadingStrategy(ITERATION_ONLY).
+            build();
+
+    private DynamoDBStreams() {
+    }
+
+    /**
+     * Stream the elements of a paginated list loaded with {@link #ITERATION_ONLY_CONFIG}.
+     * Unlike {@link java.util.Collection#stream()}, it never asks for the size of the list, which would load every page.
+     */
+    public static <T> Stream<T> stream(Iterable<T> paginatedList) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(paginatedList.iterator(), Spliterator.ORDERED), false);
+    }
+}
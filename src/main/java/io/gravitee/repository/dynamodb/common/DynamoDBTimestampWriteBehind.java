@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Buffer the writes of a timestamp attribute, keeping only the latest timestamp of each item, and write them
+ * periodically with one small UpdateItem per item.
+ * A timestamp is only written if it is newer than the stored one, so a late flush never moves it backwards, and
+ * only on existing items. The pending timestamps are written on shutdown.
+ *
+ * @author GraviteeSource Team
+ */
+public class DynamoDBTimestampWriteBehind {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBTimestampWriteBehind.class);
+
+    private final AmazonDynamoDB dynamo;
+    private final AdaptiveFanOut fanOut;
+    private final String tableName;
+    private final String keyAttribute;
+    private final String attribute;
+    private final ConcurrentMap<String, Long> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param clazz the mapped class of the items, with a string hash key and no range key
+     * @param flushIntervalMillis delay between two flushes, 0 to disable the buffering
+     */
+    public DynamoDBTimestampWriteBehind(DynamoDBMapper mapper, AmazonDynamoDB dynamo, AdaptiveFanOut fanOut,
+                                        Class<?> clazz, String attribute, long flushIntervalMillis) {
+        this.dynamo = dynamo;
+        this.fanOut = fanOut;
+        this.tableName = mapper.generateCreateTableRequest(clazz).getTableName();
+        this.keyAttribute = mapper.getTableModel(clazz).hashKey().name();
+        this.attribute = attribute;
+        if (flushIntervalMillis > 0) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gio-dynamodb-writebehind-");
+            threadFactory.setDaemon(true);
+            scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return scheduler != null;
+    }
+
+    /**
+     * Keep the timestamp until the next flush, unless a newer one is already pending for the item.
+     */
+    public void record(String key, long timestamp) {
+        pending.merge(key, timestamp, Math::max);
+    }
+
+    /**
+     * @return the timestamp waiting to be written for the item, 0 if none
+     */
+    public long pending(String key) {
+        Long timestamp = pending.get(key);
+        return timestamp == null ? 0 : timestamp;
+    }
+
+    /**
+     * Write the pending timestamps. The timestamps which could not be written are kept for the next flush.
+     */
+    public void flush() throws TechnicalException {
+        Map<String, Long> batch = new HashMap<>();
+        for (String key : pending.keySet()) {
+            Long timestamp = pending.remove(key);
+            if (timestamp != null) {
+                batch.put(key, timestamp);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        try {
+            fanOut.forEach(batch.keySet(), key -> {
+                write(key, batch.get(key));
+                written.add(key);
+            });
+        } catch (TechnicalException e) {
+            batch.forEach((key, timestamp) -> {
+                if (!written.contains(key)) {
+                    record(key, timestamp);
+                }
+            });
+            throw e;
+        }
+    }
+
+    /**
+     * Stop the periodic flushes and write the pending timestamps.
+     */
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (TechnicalException | RuntimeException e) {
+            LOGGER.error("Unable to write the pending values of [{}.{}], {} left", tableName, attribute, pending.size(), e);
+        }
+    }
+
+    private void write(String key, long timestamp) {
+        Map<String, String> names = new HashMap<>();
+        names.put("#k", keyAttribute);
+        names.put("#a", attribute);
+        try {
+            dynamo.updateItem(new UpdateItemRequest().
+                    withTableName(tableName).
+                    withKey(Collections.singletonMap(keyAttribute, new AttributeValue().withS(key))).
+                    withUpdateExpression("SET #a = :t").
+                    withConditionExpression("attribute_exists(#k) and (attribute_not_exists(#a) or #a < :t)").
+                    withExpressionAttributeNames(names).
+                    withExpressionAttributeValues(Collections.singletonMap(":t", new AttributeValue().withN(Long.toString(timestamp)))));
+        } catch (ConditionalCheckFailedException e) {
+            // the item has been deleted or already has a newer timestamp
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * A small LRU cache whose entries expire after a fixed delay.
+ * Values are only cached if nothing has been invalidated while they were being loaded, so that a value read
+ * before a write is never cached after it.
+ *
+ * @author GraviteeSource Team
+ */
+public class ExpiringCache<K, V> {
+
+    private final long ttlMillis;
+    private final int maxSize;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long generation;
+
+    /**
+     * @param ttlMillis delay after which an entry expires, 0 disables the cache
+     * @param maxSize maximum number of entries, the least recently used are evicted first
+     */
+    public ExpiringCache(long ttlMillis, int maxSize) {
+        this(ttlMillis, maxSize, Long.MAX_VALUE, value -> 0);
+    }
+
+    /**
+     * @param ttlMillis delay after which an entry expires, 0 disables the cache
+     * @param maxSize maximum number of entries, the least recently used are evicted first
+     * @param maxWeight maximum total weight of the entries, the least recently used are evicted first
+     * @param weigher the weight of a value, typically its approximate size in bytes
+     */
+    public ExpiringCache(long ttlMillis, int maxSize, long maxWeight, ToLongFunction<V> weigher) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt < System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * @return the generation to give back to {@link #put(Object, Object, long)}, to be read before loading the value
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(K key, V value, long generation) {
+        if (ttlMillis <= 0 || this.generation != generation) {
+            return;
+        }
+        remove(key);
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, valueWeight, System.currentTimeMillis() + ttlMillis));
+        weight += valueWeight;
+
+        Iterator<Entry<V>> leastRecentlyUsed = entries.values().iterator();
+        while (entries.size() > maxSize || weight > maxWeight) {
+            weight -= leastRecentlyUsed.next().weight;
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        weight = 0;
+    }
+
+    private void remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expireAt;
+
+        private Entry(V value, long weight, long expireAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tell a repository whether it can read from an index table.
+ * Until the backfill of the index has completed, the status is checked at most once per minute and the repository
+ * keeps using its previous read path. Once ready, reads are switched over for good.
+ *
+ * @author GraviteeSource Team
+ */
+public class IndexBackfill {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(IndexBackfill.class);
+
+    private static final long CHECK_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final AmazonDynamoDB dynamo;
+    private final String statusTableName;
+    private final String indexName;
+    private final IndexBackfills.Backfill backfill;
+
+    private volatile boolean ready;
+    private volatile long checkedAt;
+
+    IndexBackfill(AmazonDynamoDB dynamo, String statusTableName, String indexName, IndexBackfills.Backfill backfill) {
+        this.dynamo = dynamo;
+        this.statusTableName = statusTableName;
+        this.indexName = indexName;
+        this.backfill = backfill;
+    }
+
+    public boolean isReady() {
+        if (!ready && System.currentTimeMillis() - checkedAt > CHECK_INTERVAL) {
+            synchronized (this) {
+                if (!ready && System.currentTimeMillis() - checkedAt > CHECK_INTERVAL) {
+                    try {
+                        ready = dynamo.getItem(new GetItemRequest().
+                                withTableName(statusTableName).
+                                withKey(key()).
+                                withConsistentRead(true)).
+                                getItem() != null;
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Unable to get the status of index {} from table {}", indexName, statusTableName, e);
+                    }
+                    checkedAt = System.currentTimeMillis();
+                    if (!ready) {
+                        LOGGER.warn("Index {} is not backfilled yet, falling back to the previous read path", indexName);
+                    }
+                }
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Run the backfill, then switch the reads of every node over to the index.
+     */
+    public synchronized void run() throws TechnicalException {
+        LOGGER.info("Backfilling index {}", indexName);
+        backfill.run();
+        Map<String, AttributeValue> item = new HashMap<>(key());
+        item.put("readyAt", new AttributeValue().withN(Long.toString(System.currentTimeMillis())));
+        try {
+            dynamo.putItem(new PutItemRequest().withTableName(statusTableName).withItem(item));
+        } catch (RuntimeException e) {
+            throw new TechnicalException("Unable to mark index " + indexName + " as ready", e);
+        }
+        ready = true;
+        LOGGER.info("Index {} is ready", indexName);
+    }
+
+    private Map<String, AttributeValue> key() {
+        return Collections.singletonMap("id", new AttributeValue().withS(indexName));
+    }
+}
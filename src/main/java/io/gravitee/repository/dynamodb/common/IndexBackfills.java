@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Populate the index tables maintained by the repositories with the items written before they existed.
+ * An index is ready once its backfill has completed, which is recorded in a status table shared by all the nodes.
+ * The backfills of the indexes which are not ready yet are run on startup, one after another on a dedicated thread
+ * so that they never hold the threads of the shared executor.
+ *
+ * @author GraviteeSource Team
+ */
+public class IndexBackfills {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(IndexBackfills.class);
+
+    private final AmazonDynamoDB dynamo;
+    private final String statusTableName;
+    private final ExecutorService backfillExecutor;
+
+    /**
+     * @param automatic false to only run the backfills when asked, e.g. to run them from a single node
+     */
+    public IndexBackfills(AmazonDynamoDB dynamo, String statusTableName, boolean automatic) {
+        this.dynamo = dynamo;
+        this.statusTableName = statusTableName;
+        if (automatic) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gio-dynamodb-backfill-");
+            threadFactory.setDaemon(true);
+            backfillExecutor = Executors.newSingleThreadExecutor(threadFactory);
+        } else {
+            backfillExecutor = null;
+        }
+    }
+
+    /**
+     * @param indexName the name of the index, unique among the indexes
+     * @param backfill writes the index entries of all the existing items, it must be idempotent since several nodes
+     *                 may run it at the same time
+     */
+    public IndexBackfill register(String indexName, Backfill backfill) {
+        IndexBackfill index = new IndexBackfill(dynamo, statusTableName, indexName, backfill);
+        if (backfillExecutor != null) {
+            backfillExecutor.submit(() -> {
+                if (index.isReady()) {
+                    return;
+                }
+                try {
+                    index.run();
+                } catch (TechnicalException | RuntimeException e) {
+                    LOGGER.error("Unable to backfill index {}, reads keep using the previous path", indexName, e);
+                }
+            });
+        }
+        return index;
+    }
+
+    public void shutdown() {
+        if (backfillExecutor != null) {
+            backfillExecutor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Backfill {
+        void run() throws TechnicalException;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tell a repository whether it can read from some global secondary indexes.
+ * Until the indexes are active, the status is checked at most once per minute and the repository
+ * keeps using its previous read path. Once active, reads are switched over for good.
+ *
+ * @author GraviteeSource Team
+ */
+public class IndexReadSwitch {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(IndexReadSwitch.class);
+
+    private static final long CHECK_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final DynamoDBIndexManager indexManager;
+    private final String tableName;
+    private final List<String> indexNames;
+
+    private volatile boolean active;
+    private volatile long checkedAt;
+
+    public IndexReadSwitch(DynamoDBIndexManager indexManager, String tableName, String... indexNames) {
+        this.indexManager = indexManager;
+        this.tableName = tableName;
+        this.indexNames = Arrays.asList(indexNames);
+    }
+
+    public boolean isActive() {
+        if (!active && System.currentTimeMillis() - checkedAt > CHECK_INTERVAL) {
+            synchronized (this) {
+                if (!active && System.currentTimeMillis() - checkedAt > CHECK_INTERVAL) {
+                    try {
+                        active = indexManager.areActive(tableName, indexNames);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Unable to get the status of indexes {} of table {}", indexNames, tableName, e);
+                    }
+                    checkedAt = System.currentTimeMillis();
+                    if (!active) {
+                        LOGGER.warn("Indexes {} of table {} are not active, falling back to scans", indexNames, tableName);
+                    }
+                }
+            }
+        }
+        return active;
+    }
+
+    public void activate() {
+        active = true;
+    }
+}
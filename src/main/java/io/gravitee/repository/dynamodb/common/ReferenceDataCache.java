@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Keep an immutable copy of small tables read on almost every request.
+ * Each table has a version counter, stored with the others in a single item, and incremented after each write.
+ * The counters are read at most once per check interval with a single GetItem, and a table is scanned again
+ * only when its counter has changed.
+ * While the counters cannot be read, for instance when the version table does not exist, the tables are not cached.
+ *
+ * @author GraviteeSource Team
+ */
+public class ReferenceDataCache {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private static final Map<String, AttributeValue> VERSION_KEY =
+            Collections.singletonMap("id", new AttributeValue().withS("referenceData"));
+
+    private final DynamoDBMapper mapper;
+    private final AmazonDynamoDB dynamo;
+    private final String versionTableName;
+    private final long checkIntervalMillis;
+
+    private final Map<Class<?>, Snapshot<?>> snapshots = new ConcurrentHashMap<>();
+    private volatile Map<String, AttributeValue> versions = Collections.emptyMap();
+    private volatile long checkedAt;
+
+    /**
+     * @param checkIntervalMillis minimum delay between two reads of the version counters, 0 to read them on each call
+     */
+    public ReferenceDataCache(DynamoDBMapper mapper, AmazonDynamoDB dynamo, String versionTableName, long checkIntervalMillis) {
+        this.mapper = mapper;
+        this.dynamo = dynamo;
+        this.versionTableName = versionTableName;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    /**
+     * Load the tables in the background. A table that cannot be loaded now is loaded on its first read.
+     */
+    public void preload(ExecutorService executor, Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            executor.submit(() -> {
+                try {
+                    findAll(clazz);
+                } catch (AmazonClientException e) {
+                    LOGGER.warn("Unable to preload {}: {}", clazz.getSimpleName(), e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * @return all the items of the table, the list and its items must not be modified
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> findAll(Class<T> clazz) {
+        String version = version(clazz);
+        if (version == null) {
+            return scan(clazz);
+        }
+        Snapshot<T> snapshot = (Snapshot<T>) snapshots.get(clazz);
+        if (snapshot != null && snapshot.version.equals(version)) {
+            return snapshot.items;
+        }
+
+        // the version is read before the scan, so a write made meanwhile triggers another reload,
+        // and the scan is consistent so that it sees the write which incremented the version
+        snapshot = new Snapshot<>(version, scan(clazz));
+        snapshots.put(clazz, snapshot);
+        return snapshot.items;
+    }
+
+    private <T> List<T> scan(Class<T> clazz) {
+        return Collections.unmodifiableList(new ArrayList<>(
+                mapper.scan(clazz, new DynamoDBScanExpression().withConsistentRead(true))));
+    }
+
+    /**
+     * Drop the local copy of the table and increment its version so that the other nodes reload it.
+     * To be called after each write.
+     */
+    public void invalidate(Class<?> clazz) {
+        snapshots.remove(clazz);
+        try {
+            versions = dynamo.updateItem(new UpdateItemRequest().
+                    withTableName(versionTableName).
+                    withKey(VERSION_KEY).
+                    withUpdateExpression("ADD #t :one").
+                    withExpressionAttributeNames(Collections.singletonMap("#t", clazz.getSimpleName())).
+                    withExpressionAttributeValues(Collections.singletonMap(":one", new AttributeValue().withN("1"))).
+                    withReturnValues(ReturnValue.ALL_NEW)).
+                    getAttributes();
+        } catch (AmazonClientException e) {
+            LOGGER.error("Unable to increment the version of {}, the other nodes will not reload it", clazz.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Lets the caches derived from a table, such as the role permissions, detect its writes made by the other nodes.
+     *
+     * @return the version of the table, read again at most once per check interval, null when the versions cannot be read
+     */
+    public String version(Class<?> clazz) {
+        long now = System.currentTimeMillis();
+        if (now - checkedAt >= checkIntervalMillis) {
+            checkedAt = now;
+            try {
+                Map<String, AttributeValue> item = dynamo.getItem(new GetItemRequest().
+                        withTableName(versionTableName).
+                        withKey(VERSION_KEY).
+                        withConsistentRead(true)).
+                        getItem();
+                versions = item == null ? Collections.emptyMap() : item;
+            } catch (AmazonClientException e) {
+                LOGGER.warn("Unable to read the versions from {}, the reference data is not cached: {}",
+                        versionTableName, e.getMessage());
+                versions = null;
+            }
+        }
+        Map<String, AttributeValue> versions = this.versions;
+        if (versions == null) {
+            return null;
+        }
+        AttributeValue version = versions.get(clazz.getSimpleName());
+        return version == null ? "0" : version.getN();
+    }
+
+    private static class Snapshot<T> {
+        private final String version;
+        private final List<T> items;
+
+        private Snapshot(String version, List<T> items) {
+            this.version = version;
+            this.items = items;
+        }
+    }
+}
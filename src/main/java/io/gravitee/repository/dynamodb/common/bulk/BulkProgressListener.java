@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common.bulk;
+
+/**
+ * Notified each time an item of a bulk operation has been processed.
+ *
+ * @author GraviteeSource Team
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+
+    BulkProgressListener NONE = (id, success, processed, total) -> {};
+
+    /**
+     * @param id the id of the processed item
+     * @param success <code>true</code> if the item has been written
+     * @param processed the number of items processed so far
+     * @param total the number of items of the operation
+     */
+    void onProgress(String id, boolean success, int processed, int total);
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common.bulk;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outcome of a bulk operation: the ids written successfully and the failure reason of the others.
+ *
+ * @author GraviteeSource Team
+ */
+public class BulkResult {
+
+    private final int total;
+    private final BulkProgressListener listener;
+    private final AtomicInteger processed = new AtomicInteger();
+    private final Set<String> succeeded = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+    public BulkResult(int total, BulkProgressListener listener) {
+        this.total = total;
+        this.listener = listener == null ? BulkProgressListener.NONE : listener;
+    }
+
+    public void succeeded(String id) {
+        succeeded.add(id);
+        listener.onProgress(id, true, processed.incrementAndGet(), total);
+    }
+
+    public void failed(String id, String reason) {
+        failures.put(id, reason == null ? "unknown error" : reason);
+        listener.onProgress(id, false, processed.incrementAndGet(), total);
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getProcessed() {
+        return processed.get();
+    }
+
+    public Set<String> getSucceeded() {
+        return Collections.unmodifiableSet(succeeded);
+    }
+
+    public Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty() && processed.get() == total;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" +
+                "total=" + total +
+                ", succeeded=" + succeeded.size() +
+                ", failed=" + failures.size() +
+                '}';
+    }
+}
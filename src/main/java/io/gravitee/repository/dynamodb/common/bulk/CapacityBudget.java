@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.common.bulk;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of in-flight write requests of bulk operations and, when configured,
+ * paces them so they do not consume more than a given number of write capacity units per second.
+ *
+ * @author GraviteeSource Team
+ */
+public class CapacityBudget {
+
+    private final Semaphore concurrency;
+    private final long nanosPerUnit;
+    private long nextAvailable = System.nanoTime();
+
+    /**
+     * @param maxConcurrency maximum number of requests running at the same time
+     * @param unitsPerSecond maximum number of write capacity units consumed per second, 0 means unlimited
+     */
+    public CapacityBudget(int maxConcurrency, int unitsPerSecond) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be greater than 0");
+        }
+        this.concurrency = new Semaphore(maxConcurrency, true);
+        this.nanosPerUnit = unitsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / unitsPerSecond : 0;
+    }
+
+    public void acquire(int units) throws InterruptedException {
+        concurrency.acquire();
+        try {
+            pace(units);
+        } catch (InterruptedException e) {
+            concurrency.release();
+            throw e;
+        }
+    }
+
+    public void release() {
+        concurrency.release();
+    }
+
+    private void pace(int units) throws InterruptedException {
+        if (nanosPerUnit == 0) {
+            return;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextAvailable);
+            nextAvailable = start + units * nanosPerUnit;
+            wait = start - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
@@ -15,18 +15,33 @@
  */
 package io.gravitee.repository.dynamodb.management;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.*;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import io.gravitee.repository.dynamodb.common.bulk.BulkProgressListener;
+import io.gravitee.repository.dynamodb.common.bulk.BulkResult;
+import io.gravitee.repository.dynamodb.common.bulk.CapacityBudget;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBApiKey;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBGraviteeSchema;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.ApiKeyRepository;
 import io.gravitee.repository.management.api.search.ApiKeyCriteria;
 import io.gravitee.repository.management.model.ApiKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -37,9 +52,24 @@ import java.util.stream.Collectors;
 @Repository
 public class DynamoDBApiKeyRepository implements ApiKeyRepository{
 
+    private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBApiKeyRepository.class);
+
+    // a batch write request accepts at most 25 items
+    private static final int BATCH_WRITE_SIZE = 25;
+
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private AmazonDynamoDB dynamo;
+
+    @Autowired
+    private ExecutorService dynamoDBExecutor;
+
+    @Autowired
+    @Qualifier("apiKeyBulkCapacityBudget")
+    private CapacityBudget bulkCapacityBudget;
+
     @Override
     public Optional<ApiKey> findById(String id) throws TechnicalException {
         DynamoDBApiKey load = mapper.load(DynamoDBApiKey.class, id);
@@ -68,18 +98,19 @@ public class DynamoDBApiKeyRepository implements ApiKeyRepository{
             throw new IllegalStateException("ApiKey to update must have an key");
         }
 
-        if (!findById(apiKey.getKey()).isPresent()) {
+        try {
+            mapper.save(
+                    convert(apiKey),
+                    new DynamoDBSaveExpression().withExpectedEntry(
+                            "key",
+                            new ExpectedAttributeValue().
+                                    withValue(new AttributeValue().withS(apiKey.getKey())).
+                                    withExists(true)
+                    )
+            );
+        } catch (ConditionalCheckFailedException e) {
             throw new IllegalStateException(String.format("No apiKey found with key [%s]", apiKey.getKey()));
         }
-        mapper.save(
-                convert(apiKey),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "key",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(apiKey.getKey())).
-                                withExists(true)
-                )
-        );
         return apiKey;
     }
 
@@ -151,6 +182,208 @@ public class DynamoDBApiKeyRepository implements ApiKeyRepository{
                 collect(Collectors.toList());
     }
 
+    /**
+     * Revoke all the active keys of a subscription.
+     */
+    public BulkResult revokeBySubscription(String subscription, Date revokedAt, BulkProgressListener listener) throws TechnicalException {
+        return revoke(findBySubscription(subscription), revokedAt, listener);
+    }
+
+    /**
+     * Revoke all the active keys of a plan.
+     */
+    public BulkResult revokeByPlan(String plan, Date revokedAt, BulkProgressListener listener) throws TechnicalException {
+        return revoke(findByPlan(plan), revokedAt, listener);
+    }
+
+    /**
+     * Revoke all the active keys of an application.
+     * There is no index on the application, so the keys are found with a filtered scan.
+     */
+    public BulkResult revokeByApplication(String application, Date revokedAt, BulkProgressListener listener) throws TechnicalException {
+        return revoke(findByApplication(application), revokedAt, listener);
+    }
+
+    /**
+     * Set the expiration date of all the active keys of a subscription, used to rotate them.
+     */
+    public BulkResult expireBySubscription(String subscription, Date expireAt, BulkProgressListener listener) throws TechnicalException {
+        return expire(findBySubscription(subscription), expireAt, listener);
+    }
+
+    /**
+     * Set the expiration date of all the active keys of a plan, used to rotate them.
+     */
+    public BulkResult expireByPlan(String plan, Date expireAt, BulkProgressListener listener) throws TechnicalException {
+        return expire(findByPlan(plan), expireAt, listener);
+    }
+
+    /**
+     * Write the keys without any condition using batch write requests.
+     * Meant for keys whose final state is already known, like the new keys generated during a rotation.
+     */
+    public BulkResult saveAll(Collection<ApiKey> apiKeys, BulkProgressListener listener) throws TechnicalException {
+        List<DynamoDBApiKey> dynamoDBApiKeys = apiKeys.stream().map(this::convert).collect(Collectors.toList());
+        BulkResult result = new BulkResult(dynamoDBApiKeys.size(), listener);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < dynamoDBApiKeys.size(); i += BATCH_WRITE_SIZE) {
+            List<DynamoDBApiKey> chunk = dynamoDBApiKeys.subList(i, Math.min(i + BATCH_WRITE_SIZE, dynamoDBApiKeys.size()));
+            submitWithinBudget(futures, chunk.size(), () -> {
+                Set<String> failed = new HashSet<>();
+                for (DynamoDBMapper.FailedBatch failedBatch : mapper.batchSave(chunk)) {
+                    failedBatch.getUnprocessedItems().values().forEach(requests -> requests.forEach(request -> {
+                        String key = request.getPutRequest().getItem().get("key").getS();
+                        failed.add(key);
+                        result.failed(key, failedBatch.getException().getMessage());
+                    }));
+                }
+                chunk.stream().
+                        map(DynamoDBApiKey::getKey).
+                        filter(key -> !failed.contains(key)).
+                        forEach(result::succeeded);
+            }, chunk.stream().map(DynamoDBApiKey::getKey).collect(Collectors.toList()), result);
+        }
+        await(futures);
+        return result;
+    }
+
+    private Set<ApiKey> findByApplication(String application) {
+        return mapper.scan(DynamoDBApiKey.class, new DynamoDBScanExpression().
+                withFilterExpression("application = :a").
+                withExpressionAttributeValues(Collections.singletonMap(":a", new AttributeValue().withS(application))).
+                withConsistentRead(false)).
+                stream().
+                map(this::convert).
+                collect(Collectors.toSet());
+    }
+
+    BulkResult revoke(Set<ApiKey> apiKeys, Date revokedAt, BulkProgressListener listener) throws TechnicalException {
+        Map<String, AttributeValue> eav = new HashMap<>();
+        eav.put(":revoked", new AttributeValue().withBOOL(true));
+        eav.put(":notRevoked", new AttributeValue().withBOOL(false));
+        eav.put(":at", new AttributeValue().withN(Long.toString(revokedAt.getTime())));
+        return conditionalUpdate(apiKeys,
+                "SET revoked = :revoked, revokeAt = :at, updatedAt = :at",
+                eav,
+                listener);
+    }
+
+    BulkResult expire(Set<ApiKey> apiKeys, Date expireAt, BulkProgressListener listener) throws TechnicalException {
+        Map<String, AttributeValue> eav = new HashMap<>();
+        eav.put(":notRevoked", new AttributeValue().withBOOL(false));
+        eav.put(":expireAt", new AttributeValue().withN(Long.toString(expireAt.getTime())));
+        eav.put(":now", new AttributeValue().withN(Long.toString(System.currentTimeMillis())));
+        return conditionalUpdate(apiKeys,
+                "SET expireAt = :expireAt, updatedAt = :now",
+                eav,
+                listener);
+    }
+
+    /**
+     * Apply the update expression to each non revoked key with parallel UpdateItem requests.
+     * The condition makes sure a key is neither recreated nor modified once revoked.
+     */
+    private BulkResult conditionalUpdate(Set<ApiKey> apiKeys, String updateExpression,
+                                         Map<String, AttributeValue> eav, BulkProgressListener listener) throws TechnicalException {
+        List<String> keys = apiKeys.stream().
+                filter(apiKey -> !apiKey.isRevoked()).
+                map(ApiKey::getKey).
+                collect(Collectors.toList());
+        BulkResult result = new BulkResult(keys.size(), listener);
+
+        List<Future<?>> futures = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            submitWithinBudget(futures, 1, () -> {
+                try {
+                    dynamo.updateItem(new UpdateItemRequest().
+                            withTableName(DynamoDBGraviteeSchema.APIKEY_TABLENAME).
+                            withKey(Collections.singletonMap("key", new AttributeValue().withS(key))).
+                            withUpdateExpression(updateExpression).
+                            withConditionExpression("attribute_exists(#k) and revoked = :notRevoked").
+                            withExpressionAttributeNames(Collections.singletonMap("#k", "key")).
+                            withExpressionAttributeValues(eav));
+                    result.succeeded(key);
+                } catch (ConditionalCheckFailedException e) {
+                    result.failed(key, "ApiKey does not exist or is already revoked");
+                }
+            }, Collections.singletonList(key), result);
+        }
+        await(futures);
+        return result;
+    }
+
+    /**
+     * Submit the write once the budget allows it. The budget is taken by the caller, so that the shared executor never
+     * holds more than the bulk concurrency of waiting writes, and no pool thread waits for the budget.
+     */
+    private void submitWithinBudget(List<Future<?>> futures, int units, Runnable write,
+                                    Collection<String> keys, BulkResult result) throws TechnicalException {
+        try {
+            bulkCapacityBudget.acquire(units);
+        } catch (InterruptedException e) {
+            awaitUninterruptibly(futures);
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while waiting for the apikeys bulk operation", e);
+        }
+        try {
+            futures.add(dynamoDBExecutor.submit(() -> {
+                try {
+                    write.run();
+                } catch (AmazonClientException e) {
+                    LOGGER.error("An error occurs while writing apikeys {}", keys, e);
+                    keys.forEach(key -> result.failed(key, e.getMessage()));
+                } finally {
+                    bulkCapacityBudget.release();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            bulkCapacityBudget.release();
+            keys.forEach(key -> result.failed(key, e.getMessage()));
+        }
+    }
+
+    /**
+     * Wait for all the writes, even when interrupted, so that none of them has an effect after the bulk operation
+     * returns. A queued write is not cancelled since it would never give its budget back.
+     */
+    private void await(List<Future<?>> futures) throws TechnicalException {
+        Throwable failure = awaitUninterruptibly(futures);
+        if (Thread.currentThread().isInterrupted()) {
+            throw new TechnicalException("Interrupted while waiting for the apikeys bulk operation");
+        }
+        if (failure != null) {
+            throw new TechnicalException("An error occurs during the apikeys bulk operation", failure);
+        }
+    }
+
+    /**
+     * @return the first failure of the writes, null if none failed
+     */
+    private Throwable awaitUninterruptibly(List<Future<?>> futures) {
+        boolean interrupted = false;
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return failure;
+    }
+
     private ApiKey convert(DynamoDBApiKey dynamoDBApiKey) {
         if (dynamoDBApiKey == null) {
             return null;
@@ -16,10 +16,12 @@
 package io.gravitee.repository.dynamodb.management;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.*;
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
-import com.amazonaws.util.ImmutableMapParameter;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.DynamoDBConditionalWriter;
+import io.gravitee.repository.dynamodb.common.DynamoDBLoadCoalescer;
+import io.gravitee.repository.dynamodb.common.DynamoDBScanner;
+import io.gravitee.repository.dynamodb.common.ExpiringCache;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBApi;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.ApiRepository;
@@ -27,12 +29,12 @@ import io.gravitee.repository.management.model.Api;
 import io.gravitee.repository.management.model.LifecycleState;
 import io.gravitee.repository.management.model.Visibility;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
 import java.util.stream.Collectors;
-
-import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.CONTAINS;
+import java.util.stream.Stream;
 
 /**
  * @author Nicolas GERAUD (nicolas.geraud at graviteesource.com) 
@@ -41,13 +43,45 @@ import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.CONTAIN
 @Repository
 public class DynamoDBApiRepository implements ApiRepository {
 
+    // every attribute but the definition and the picture, which are not needed to list apis
+    private static final List<String> SUMMARY_ATTRIBUTES = Arrays.asList("name", "version", "description",
+            "lifecycleState", "visibility", "groups", "deployedAt", "createdAt", "updatedAt", "views", "labels");
+
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    private DynamoDBScanner scanner;
+
+    @Autowired
+    private DynamoDBConditionalWriter conditionalWriter;
+
+    @Autowired
+    @Qualifier("apiStateCache")
+    private ExpiringCache<String, DynamoDBApi> stateCache;
+
+    @Autowired
+    private DynamoDBLoadCoalescer loadCoalescer;
+
+    @Autowired
+    private DynamoDBGroupIndexRepository groupIndexRepository;
+
+    @Autowired
+    private DynamoDBApiSearchIndexRepository searchIndexRepository;
+
     @Override
     public Set<Api> findAll() throws TechnicalException {
-        PaginatedScanList<DynamoDBApi> dynamoDBApis = mapper.scan(DynamoDBApi.class, new DynamoDBScanExpression());
-        return dynamoDBApis.stream().map(this::convert).collect(Collectors.toSet());
+        return streamAll().collect(Collectors.toSet());
+    }
+
+    /**
+     * Same as {@link #findAll()}, reading the apis one page at a time while the stream is consumed.
+     */
+    public Stream<Api> streamAll() {
+        return scanner.scan(DynamoDBApi.class).map(this::convert);
     }
 
     @Override
@@ -64,34 +98,36 @@ public class DynamoDBApiRepository implements ApiRepository {
 
     @Override
     public Set<Api> findByIds(List<String> ids) throws TechnicalException {
-        Map<String, List<Object>> result = mapper.batchLoad(ids.stream().map(id -> {
+        return batchLoader.load(DynamoDBApi.class, ids.stream().map(id -> {
             DynamoDBApi api = new DynamoDBApi();
             api.setId(id);
             return api;
-        }).collect(Collectors.toSet()));
-
-        if (result != null && !result.isEmpty()) {
-            List<Object> apis = result.entrySet().iterator().next().getValue();
-            return apis.stream().map(o -> convert((DynamoDBApi)o)).collect(Collectors.toSet());
-        }
-        return Collections.emptySet();
+        }).collect(Collectors.toList())).
+                stream().
+                map(this::convert).
+                collect(Collectors.toSet());
     }
 
     @Override
     public Set<Api> findByGroups(List<String> groupIds) throws TechnicalException {
         if (groupIds !=null && !groupIds.isEmpty()) {
-            Set<Api> result = new HashSet<>();
-            for (String groupId : groupIds) {
-                result.addAll(mapper.scan(DynamoDBApi.class,
-                        new DynamoDBScanExpression().
-                                withFilterExpression("contains(groups, :g)").
-                                withExpressionAttributeValues(ImmutableMapParameter.of(
-                                        ":g", new AttributeValue().withS(groupId)))).
-                        stream().
+            if (!groupIndexRepository.isReady()) {
+                return scanner.scan(DynamoDBApi.class).
+                        filter(dynamoDBApi -> isInGroups(dynamoDBApi, groupIds)).
                         map(this::convert).
-                        collect(Collectors.toSet()));
+                        collect(Collectors.toSet());
             }
-            return result;
+            Set<String> apiIds = groupIndexRepository.findEntityIds(DynamoDBGroupIndexRepository.API, groupIds);
+            return batchLoader.load(DynamoDBApi.class, apiIds.stream().map(id -> {
+                DynamoDBApi api = new DynamoDBApi();
+                api.setId(id);
+                return api;
+            }).collect(Collectors.toList())).
+                    stream().
+                    // an entry written by the backfill may be outdated
+                    filter(dynamoDBApi -> isInGroups(dynamoDBApi, groupIds)).
+                    map(this::convert).
+                    collect(Collectors.toSet());
         } else {
             return Collections.emptySet();
         }
@@ -99,7 +135,13 @@ public class DynamoDBApiRepository implements ApiRepository {
 
     @Override
     public Optional<Api> findById(String id) throws TechnicalException {
-        DynamoDBApi load = mapper.load(DynamoDBApi.class, id);
+        DynamoDBApi key = new DynamoDBApi();
+        key.setId(id);
+        long generation = stateCache.generation();
+        DynamoDBApi load = loadCoalescer.load(DynamoDBApi.class, key);
+        if (load != null) {
+            stateCache.put(id, load, generation);
+        }
         return Optional.ofNullable(convert(load));
     }
 
@@ -109,13 +151,18 @@ public class DynamoDBApiRepository implements ApiRepository {
             throw new IllegalArgumentException("Trying to create null");
         }
 
+        DynamoDBApi dynamoDBApi = convert(api);
+        long generation = stateCache.generation();
         mapper.save(
-                convert(api),
+                dynamoDBApi,
                 new DynamoDBSaveExpression().withExpectedEntry(
                         "id",
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        stateCache.put(api.getId(), dynamoDBApi, generation);
+        groupIndexRepository.update(DynamoDBGroupIndexRepository.API, api.getId(), null, api.getGroups());
+        searchIndexRepository.update(api.getId(), null, dynamoDBApi);
         return api;
     }
 
@@ -125,18 +172,20 @@ public class DynamoDBApiRepository implements ApiRepository {
             throw new IllegalStateException("Api to update must have an id");
         }
 
-        if (!findById(api.getId()).isPresent()) {
-            throw new IllegalStateException(String.format("No api found with id [%s]", api.getId()));
+        DynamoDBApi dynamoDBApi = convert(api);
+        long generation = stateCache.generation();
+        // only the changed attributes are written when the stored api is known, the definition rarely changes
+        DynamoDBApi previous = stateCache.get(api.getId());
+        if (previous == null || !conditionalWriter.updateChanged(DynamoDBApi.class, previous, dynamoDBApi, "updatedAt")) {
+            previous = conditionalWriter.replace(DynamoDBApi.class, dynamoDBApi);
+            if (previous == null) {
+                stateCache.invalidate(api.getId());
+                throw new IllegalStateException(String.format("No api found with id [%s]", api.getId()));
+            }
         }
-        mapper.save(
-                convert(api),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(api.getId())).
-                                withExists(true)
-                )
-        );
+        stateCache.put(api.getId(), dynamoDBApi, generation);
+        groupIndexRepository.update(DynamoDBGroupIndexRepository.API, api.getId(), previous.getGroups(), api.getGroups());
+        searchIndexRepository.update(api.getId(), previous, dynamoDBApi);
         return api;
     }
 
@@ -145,9 +194,70 @@ public class DynamoDBApiRepository implements ApiRepository {
         if (id == null) {
             throw new IllegalArgumentException("Trying to delete null");
         }
+        stateCache.invalidate(id);
+        DynamoDBApi previous = mapper.load(DynamoDBApi.class, id);
         DynamoDBApi dynamoDBApi = new DynamoDBApi();
         dynamoDBApi.setId(id);
         mapper.delete(dynamoDBApi);
+        if (previous != null) {
+            groupIndexRepository.delete(DynamoDBGroupIndexRepository.API, id, previous.getGroups());
+            searchIndexRepository.delete(id, previous);
+        }
+    }
+
+    /**
+     * Rebuild the group index from the groups of all the apis and applications.
+     * It runs on startup until it has completed once, see {@link io.gravitee.repository.dynamodb.common.IndexBackfills}.
+     */
+    public void reindexGroups() throws TechnicalException {
+        groupIndexRepository.backfill();
+    }
+
+    private static boolean isInGroups(DynamoDBApi dynamoDBApi, Collection<String> groupIds) {
+        return dynamoDBApi.getGroups() != null && !Collections.disjoint(dynamoDBApi.getGroups(), groupIds);
+    }
+
+    /**
+     * Search the apis by the terms of their name, description, labels and views.
+     * A word of the text ending with <code>*</code> matches the terms starting with it.
+     *
+     * @param matchAll true if an api must match every word of the text, false if it must match at least one
+     * @return the ids of the matching apis, best ranked first
+     */
+    public List<String> searchIds(String text, boolean matchAll) throws TechnicalException {
+        return search(text, matchAll).
+                stream().
+                map(Api::getId).
+                collect(Collectors.toList());
+    }
+
+    /**
+     * Same as {@link #searchIds(String, boolean)}, returning the apis without their definition and picture.
+     */
+    public List<Api> search(String text, boolean matchAll) throws TechnicalException {
+        List<String> ids = searchIndexRepository.search(text, matchAll);
+        Map<String, Api> apis = batchLoader.load(DynamoDBApi.class, ids.stream().map(id -> {
+            DynamoDBApi api = new DynamoDBApi();
+            api.setId(id);
+            return api;
+        }).collect(Collectors.toList()), SUMMARY_ATTRIBUTES).
+                stream().
+                // an entry written by the backfill may be outdated
+                filter(dynamoDBApi -> DynamoDBApiSearchIndexRepository.matches(dynamoDBApi, text, matchAll)).
+                map(this::convert).
+                collect(Collectors.toMap(Api::getId, api -> api));
+        return ids.stream().
+                map(apis::get).
+                filter(Objects::nonNull).
+                collect(Collectors.toList());
+    }
+
+    /**
+     * Rebuild the search index from the names, descriptions, labels and views of all the apis.
+     * It runs on startup until it has completed once, see {@link io.gravitee.repository.dynamodb.common.IndexBackfills}.
+     */
+    public void reindexSearch() throws TechnicalException {
+        searchIndexRepository.backfill();
     }
 
 
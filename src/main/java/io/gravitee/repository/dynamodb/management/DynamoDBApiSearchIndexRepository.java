@@ -0,0 +1,293 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import io.gravitee.repository.dynamodb.common.AdaptiveFanOut;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchWrites;
+import io.gravitee.repository.dynamodb.common.DynamoDBStreams;
+import io.gravitee.repository.dynamodb.common.IndexBackfill;
+import io.gravitee.repository.dynamodb.common.IndexBackfills;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBApi;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBApiSearchIndex;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Maintain the inverted index of the terms of the api names, descriptions, labels and views, and rank the apis
+ * matching a search.
+ * A term is a lower case sequence of letters and digits. Each (term, api) entry is weighted by the fields the term
+ * appears in, a term of the name weighing more than a term of the description.
+ *
+ * @author GraviteeSource Team
+ */
+@Repository
+public class DynamoDBApiSearchIndexRepository {
+
+    static final int NAME_WEIGHT = 8;
+    static final int LABEL_WEIGHT = 4;
+    static final int VIEW_WEIGHT = 4;
+    static final int DESCRIPTION_WEIGHT = 1;
+
+    // prefixes shorter than the bucket cannot be searched, they are searched as terms
+    private static final int BUCKET_LENGTH = 2;
+    private static final String SEPARATOR = "#";
+    private static final Pattern NON_TERM_CHARACTERS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    @Autowired
+    private DynamoDBMapper mapper;
+
+    @Autowired
+    @Qualifier("apiSearchQueryFanOut")
+    private AdaptiveFanOut queryFanOut;
+
+    @Autowired
+    private IndexBackfills indexBackfills;
+
+    private IndexBackfill backfill;
+
+    @PostConstruct
+    void init() {
+        backfill = indexBackfills.register(DynamoDBApiSearchIndex.class.getSimpleName(), this::reindex);
+    }
+
+    /**
+     * Index the terms of all the apis, then search from the index.
+     */
+    void backfill() throws TechnicalException {
+        backfill.run();
+    }
+
+    void update(String apiId, DynamoDBApi previousApi, DynamoDBApi newApi) throws TechnicalException {
+        Map<String, Integer> previous = terms(previousApi);
+        Map<String, Integer> next = terms(newApi);
+
+        List<DynamoDBApiSearchIndex> toDelete = previous.keySet().stream().
+                filter(term -> !next.containsKey(term)).
+                map(term -> convert(term, apiId, 0)).
+                collect(Collectors.toList());
+        List<DynamoDBApiSearchIndex> toSave = next.entrySet().stream().
+                filter(term -> !term.getValue().equals(previous.get(term.getKey()))).
+                map(term -> convert(term.getKey(), apiId, term.getValue())).
+                collect(Collectors.toList());
+
+        DynamoDBBatchWrites.delete(mapper, toDelete);
+        DynamoDBBatchWrites.save(mapper, toSave);
+    }
+
+    void delete(String apiId, DynamoDBApi api) throws TechnicalException {
+        update(apiId, api, null);
+    }
+
+    /**
+     * Search the apis by terms. A word of the text ending with <code>*</code> matches the terms starting with it.
+     * The apis are scanned until the index has been backfilled. The index may hold outdated entries written by the
+     * backfill, so the apis found have to be checked with {@link #matches(DynamoDBApi, String, boolean)}.
+     *
+     * @param matchAll true if an api must match every word of the text, false if it must match at least one
+     * @return the ids of the matching apis, best ranked first: the sum, over the words they match, of the weight of
+     * the matched term
+     */
+    List<String> search(String text, boolean matchAll) throws TechnicalException {
+        Map<String, Boolean> clauses = parse(text);
+        if (clauses.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Map<String, Integer>> weightsByTerm = new ConcurrentHashMap<>();
+        if (backfill.isReady()) {
+            queryFanOut.forEach(clauses.keySet(), term -> weightsByTerm.put(term, findWeights(term, clauses.get(term))));
+        } else {
+            clauses.keySet().forEach(term -> weightsByTerm.put(term, new HashMap<>()));
+            Iterator<DynamoDBApi> apis = scanSearchedAttributes();
+            while (apis.hasNext()) {
+                DynamoDBApi api = apis.next();
+                Map<String, Integer> terms = terms(api);
+                clauses.forEach((term, prefix) -> {
+                    Integer weight = weight(terms, term, prefix);
+                    if (weight != null) {
+                        weightsByTerm.get(term).put(api.getId(), weight);
+                    }
+                });
+            }
+        }
+        return rank(clauses.keySet().stream().map(weightsByTerm::get).collect(Collectors.toList()), matchAll);
+    }
+
+    /**
+     * @return true if the api matches the text as searched by {@link #search(String, boolean)}
+     */
+    static boolean matches(DynamoDBApi api, String text, boolean matchAll) {
+        Map<String, Boolean> clauses = parse(text);
+        if (clauses.isEmpty()) {
+            return false;
+        }
+        Map<String, Integer> terms = terms(api);
+        return matchAll ?
+                clauses.entrySet().stream().allMatch(clause -> weight(terms, clause.getKey(), clause.getValue()) != null) :
+                clauses.entrySet().stream().anyMatch(clause -> weight(terms, clause.getKey(), clause.getValue()) != null);
+    }
+
+    /**
+     * @param weightsByClause the weights of the matched term of each clause, by api id
+     * @return the ids of the apis matching every clause, or at least one, by descending sum of the weights then by id
+     */
+    static List<String> rank(List<Map<String, Integer>> weightsByClause, boolean matchAll) {
+        Map<String, Integer> scores = new HashMap<>();
+        for (int i = 0; i < weightsByClause.size(); i++) {
+            Map<String, Integer> weights = weightsByClause.get(i);
+            if (i == 0) {
+                scores.putAll(weights);
+            } else if (matchAll) {
+                scores.keySet().retainAll(weights.keySet());
+                weights.forEach((apiId, weight) -> scores.computeIfPresent(apiId, (id, score) -> score + weight));
+            } else {
+                weights.forEach((apiId, weight) -> scores.merge(apiId, weight, Integer::sum));
+            }
+        }
+
+        return scores.entrySet().stream().
+                sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.<String, Integer>comparingByKey())).
+                map(Map.Entry::getKey).
+                collect(Collectors.toList());
+    }
+
+    static Map<String, Integer> terms(DynamoDBApi api) {
+        Map<String, Integer> terms = new HashMap<>();
+        if (api == null) {
+            return terms;
+        }
+        addTerms(terms, api.getName(), NAME_WEIGHT);
+        addTerms(terms, api.getDescription(), DESCRIPTION_WEIGHT);
+        if (api.getLabels() != null) {
+            addTerms(terms, String.join(" ", api.getLabels()), LABEL_WEIGHT);
+        }
+        if (api.getViews() != null) {
+            addTerms(terms, String.join(" ", api.getViews()), VIEW_WEIGHT);
+        }
+        return terms;
+    }
+
+    /**
+     * @return whether each term of the text is a prefix, by term
+     */
+    static Map<String, Boolean> parse(String text) {
+        Map<String, Boolean> clauses = new LinkedHashMap<>();
+        if (text == null) {
+            return clauses;
+        }
+        for (String word : WHITESPACES.split(text.trim())) {
+            List<String> terms = tokenize(word);
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                boolean prefix = word.endsWith("*") && i == terms.size() - 1 && term.length() >= BUCKET_LENGTH;
+                clauses.merge(term, prefix, Boolean::logicalOr);
+            }
+        }
+        return clauses;
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        // a term counts once per field
+        new HashSet<>(tokenize(text)).forEach(term -> terms.merge(term, weight, Integer::sum));
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(NON_TERM_CHARACTERS.split(text.toLowerCase(Locale.ROOT))).
+                filter(term -> !term.isEmpty()).
+                collect(Collectors.toList());
+    }
+
+    /**
+     * @return the weight of the term, or of the best weighted term starting with the prefix, null if none is in
+     * the terms
+     */
+    private static Integer weight(Map<String, Integer> terms, String term, boolean prefix) {
+        if (!prefix) {
+            return terms.get(term);
+        }
+        return terms.entrySet().stream().
+                filter(entry -> entry.getKey().startsWith(term)).
+                map(Map.Entry::getValue).
+                max(Integer::compare).
+                orElse(null);
+    }
+
+    private void reindex() throws TechnicalException {
+        Iterator<DynamoDBApi> apis = scanSearchedAttributes();
+        while (apis.hasNext()) {
+            DynamoDBApi api = apis.next();
+            update(api.getId(), null, api);
+        }
+    }
+
+    private Iterator<DynamoDBApi> scanSearchedAttributes() {
+        Map<String, String> names = new HashMap<>();
+        names.put("#n", "name");
+        names.put("#v", "views");
+        return mapper.scan(DynamoDBApi.class, new DynamoDBScanExpression().
+                withProjectionExpression("id, #n, description, labels, #v").
+                withExpressionAttributeNames(names),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG).iterator();
+    }
+
+    /**
+     * @return the weight of the term, or of the best weighted term starting with the prefix, by api id
+     */
+    private Map<String, Integer> findWeights(String term, boolean prefix) {
+        DynamoDBApiSearchIndex hashKey = new DynamoDBApiSearchIndex();
+        hashKey.setBucket(bucket(term));
+        return DynamoDBStreams.stream(mapper.query(DynamoDBApiSearchIndex.class,
+                new DynamoDBQueryExpression<DynamoDBApiSearchIndex>().
+                        withConsistentRead(false).
+                        withHashKeyValues(hashKey).
+                        withRangeKeyCondition("reference", new Condition().
+                                withComparisonOperator(ComparisonOperator.BEGINS_WITH).
+                                withAttributeValueList(new AttributeValue().withS(prefix ? term : term + SEPARATOR))),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG)).
+                collect(Collectors.toMap(DynamoDBApiSearchIndex::getApiId, DynamoDBApiSearchIndex::getWeight, Math::max));
+    }
+
+    private static String bucket(String term) {
+        return term.length() <= BUCKET_LENGTH ? term : term.substring(0, BUCKET_LENGTH);
+    }
+
+    private DynamoDBApiSearchIndex convert(String term, String apiId, int weight) {
+        DynamoDBApiSearchIndex index = new DynamoDBApiSearchIndex();
+        index.setBucket(bucket(term));
+        index.setReference(term + SEPARATOR + apiId);
+        index.setApiId(apiId);
+        index.setWeight(weight);
+        return index;
+    }
+}
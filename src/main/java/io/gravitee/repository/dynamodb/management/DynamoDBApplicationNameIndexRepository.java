@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import io.gravitee.repository.dynamodb.common.AdaptiveFanOut;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchWrites;
+import io.gravitee.repository.dynamodb.common.DynamoDBStreams;
+import io.gravitee.repository.dynamodb.common.IndexBackfill;
+import io.gravitee.repository.dynamodb.common.IndexBackfills;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBApplication;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBApplicationNameIndex;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Maintain the (trigram, application id) index used to search applications by a part of their name without scanning.
+ *
+ * @author GraviteeSource Team
+ */
+@Repository
+public class DynamoDBApplicationNameIndexRepository {
+
+    static final int GRAM_LENGTH = 3;
+
+    @Autowired
+    private DynamoDBMapper mapper;
+
+    @Autowired
+    @Qualifier("applicationNameQueryFanOut")
+    private AdaptiveFanOut queryFanOut;
+
+    @Autowired
+    private IndexBackfills indexBackfills;
+
+    private IndexBackfill backfill;
+
+    @PostConstruct
+    void init() {
+        backfill = indexBackfills.register(DynamoDBApplicationNameIndex.class.getSimpleName(), this::reindex);
+    }
+
+    /**
+     * @return false until the names of the applications written before the index existed are indexed, the index
+     * must not be read meanwhile
+     */
+    boolean isReady() {
+        return backfill.isReady();
+    }
+
+    /**
+     * Index the names of all the applications, then read from the index.
+     */
+    void backfill() throws TechnicalException {
+        backfill.run();
+    }
+
+    void update(String applicationId, String previousName, String newName) throws TechnicalException {
+        Set<String> previous = trigrams(previousName);
+        Set<String> next = trigrams(newName);
+
+        List<DynamoDBApplicationNameIndex> toDelete = previous.stream().
+                filter(trigram -> !next.contains(trigram)).
+                map(trigram -> convert(trigram, applicationId)).
+                collect(Collectors.toList());
+        List<DynamoDBApplicationNameIndex> toAdd = next.stream().
+                filter(trigram -> !previous.contains(trigram)).
+                map(trigram -> convert(trigram, applicationId)).
+                collect(Collectors.toList());
+
+        DynamoDBBatchWrites.delete(mapper, toDelete);
+        DynamoDBBatchWrites.save(mapper, toAdd);
+    }
+
+    void delete(String applicationId, String name) throws TechnicalException {
+        update(applicationId, name, null);
+    }
+
+    /**
+     * The ids are those of the applications whose name has all the trigrams of the searched part, they still have to
+     * be checked against the name as the trigrams may be in another order.
+     *
+     * @return the ids of the applications which may contain the given part in their name, null if the part is too
+     * short to be searched in the index
+     */
+    Set<String> findCandidateIds(String partialName) throws TechnicalException {
+        Set<String> trigrams = trigrams(partialName);
+        if (trigrams.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Set<String>> postingsByTrigram = new ConcurrentHashMap<>();
+        queryFanOut.forEach(trigrams, trigram -> postingsByTrigram.put(trigram, findApplicationIds(trigram)));
+
+        List<Set<String>> postings = new ArrayList<>(postingsByTrigram.values());
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<String> applicationIds = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !applicationIds.isEmpty(); i++) {
+            applicationIds.retainAll(postings.get(i));
+        }
+        return applicationIds;
+    }
+
+    static Set<String> trigrams(String name) {
+        if (name == null || name.length() < GRAM_LENGTH) {
+            return Collections.emptySet();
+        }
+        String upperCaseName = name.toUpperCase();
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= upperCaseName.length(); i++) {
+            trigrams.add(upperCaseName.substring(i, i + GRAM_LENGTH));
+        }
+        return trigrams;
+    }
+
+    private void reindex() throws TechnicalException {
+        Iterator<DynamoDBApplication> applications = mapper.scan(DynamoDBApplication.class, new DynamoDBScanExpression().
+                withProjectionExpression("id, #n").withExpressionAttributeNames(Collections.singletonMap("#n", "name")),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG).iterator();
+        while (applications.hasNext()) {
+            DynamoDBApplication application = applications.next();
+            update(application.getId(), null, application.getName());
+        }
+    }
+
+    private Set<String> findApplicationIds(String trigram) {
+        DynamoDBApplicationNameIndex hashKey = new DynamoDBApplicationNameIndex();
+        hashKey.setTrigram(trigram);
+        return DynamoDBStreams.stream(mapper.query(DynamoDBApplicationNameIndex.class,
+                new DynamoDBQueryExpression<DynamoDBApplicationNameIndex>().
+                        withConsistentRead(false).
+                        withHashKeyValues(hashKey),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG)).
+                map(DynamoDBApplicationNameIndex::getApplicationId).
+                collect(Collectors.toSet());
+    }
+
+    private DynamoDBApplicationNameIndex convert(String trigram, String applicationId) {
+        DynamoDBApplicationNameIndex index = new DynamoDBApplicationNameIndex();
+        index.setTrigram(trigram);
+        index.setApplicationId(applicationId);
+        return index;
+    }
+}
@@ -16,9 +16,12 @@
 package io.gravitee.repository.dynamodb.management;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.*;
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
-import com.amazonaws.util.ImmutableMapParameter;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.DynamoDBConditionalWriter;
+import io.gravitee.repository.dynamodb.common.DynamoDBLoadCoalescer;
+import io.gravitee.repository.dynamodb.common.DynamoDBScanner;
+import io.gravitee.repository.dynamodb.common.DynamoDBStreams;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBApplication;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.ApplicationRepository;
@@ -29,6 +32,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Nicolas GERAUD (nicolas.geraud at graviteesource.com) 
@@ -40,41 +44,60 @@ public class DynamoDBApplicationRepository implements ApplicationRepository {
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    private DynamoDBScanner scanner;
+
+    @Autowired
+    private DynamoDBConditionalWriter conditionalWriter;
+
+    @Autowired
+    private DynamoDBLoadCoalescer loadCoalescer;
+
+    @Autowired
+    private DynamoDBGroupIndexRepository groupIndexRepository;
+
+    @Autowired
+    private DynamoDBApplicationNameIndexRepository nameIndexRepository;
+
     @Override
     public Set<Application> findAll(ApplicationStatus... applicationStatuses) throws TechnicalException {
-        if (applicationStatuses !=null && applicationStatuses.length > 0) {
-            Set<Application> result = new HashSet<>();
-            for (ApplicationStatus applicationStatus : applicationStatuses) {
-                DynamoDBApplication dynamoDBApplication = new DynamoDBApplication();
-                dynamoDBApplication.setStatus(applicationStatus.name());
-                result.addAll(mapper.query(DynamoDBApplication.class, new DynamoDBQueryExpression<DynamoDBApplication>().
-                        withConsistentRead(false).
-                        withHashKeyValues(dynamoDBApplication)).
-                        stream().
-                        map(this::convert).
-                        collect(Collectors.toSet()));
-            }
-            return result;
-        } else {
-            PaginatedScanList<DynamoDBApplication> dynamoDBApplications = mapper.scan(DynamoDBApplication.class, new DynamoDBScanExpression());
-            Set<Application> collect = dynamoDBApplications.stream().map(this::convert).collect(Collectors.toSet());
-            return collect;
+        return streamAll(applicationStatuses).collect(Collectors.toSet());
+    }
+
+    /**
+     * Same as {@link #findAll(ApplicationStatus...)}, reading the applications one page at a time while the stream
+     * is consumed.
+     */
+    public Stream<Application> streamAll(ApplicationStatus... applicationStatuses) {
+        if (applicationStatuses == null || applicationStatuses.length == 0) {
+            return scanner.scan(DynamoDBApplication.class).map(this::convert);
         }
+        return Arrays.stream(applicationStatuses).
+                distinct().
+                flatMap(applicationStatus -> {
+                    DynamoDBApplication dynamoDBApplication = new DynamoDBApplication();
+                    dynamoDBApplication.setStatus(applicationStatus.name());
+                    return DynamoDBStreams.stream(mapper.query(DynamoDBApplication.class, new DynamoDBQueryExpression<DynamoDBApplication>().
+                            withConsistentRead(false).
+                            withHashKeyValues(dynamoDBApplication),
+                            DynamoDBStreams.ITERATION_ONLY_CONFIG));
+                }).
+                map(this::convert);
     }
 
     @Override
     public Set<Application> findByIds(List<String> ids) throws TechnicalException {
-        Map<String, List<Object>> result = mapper.batchLoad(ids.stream().map(id -> {
+        return batchLoader.load(DynamoDBApplication.class, ids.stream().map(id -> {
             DynamoDBApplication app = new DynamoDBApplication();
             app.setId(id);
             return app;
-        }).collect(Collectors.toSet()));
-
-        if (result != null && !result.isEmpty()) {
-            List<Object> apps = result.entrySet().iterator().next().getValue();
-            return apps.stream().map(o -> convert((DynamoDBApplication)o)).collect(Collectors.toSet());
-        }
-        return Collections.emptySet();
+        }).collect(Collectors.toList())).
+                stream().
+                map(this::convert).
+                collect(Collectors.toSet());
     }
 
     @Override
@@ -82,19 +105,25 @@ public class DynamoDBApplicationRepository implements ApplicationRepository {
         if (groupIds !=null && !groupIds.isEmpty()) {
             applicationStatuses = applicationStatuses == null || applicationStatuses.length == 0 ? ApplicationStatus.values() : applicationStatuses;
             List<String> status = Arrays.stream(applicationStatuses).map(Enum::name).collect(Collectors.toList());
-            Set<Application> result = new HashSet<>();
-            for (String groupId : groupIds) {
-                result.addAll(mapper.scan(DynamoDBApplication.class,
-                        new DynamoDBScanExpression().
-                                withFilterExpression("contains(groups, :g)").
-                                withExpressionAttributeValues(ImmutableMapParameter.of(
-                                        ":g", new AttributeValue().withS(groupId))))
-                        .stream()
-                        .filter(dynamoDBApplication -> status.contains(dynamoDBApplication.getStatus()))
-                        .map(this::convert)
-                        .collect(Collectors.toSet()));
+            if (!groupIndexRepository.isReady()) {
+                return scanner.scan(DynamoDBApplication.class).
+                        filter(dynamoDBApplication -> isInGroups(dynamoDBApplication, groupIds)).
+                        filter(dynamoDBApplication -> status.contains(dynamoDBApplication.getStatus())).
+                        map(this::convert).
+                        collect(Collectors.toSet());
             }
-            return result;
+            Set<String> applicationIds = groupIndexRepository.findEntityIds(DynamoDBGroupIndexRepository.APPLICATION, groupIds);
+            return batchLoader.load(DynamoDBApplication.class, applicationIds.stream().map(id -> {
+                DynamoDBApplication app = new DynamoDBApplication();
+                app.setId(id);
+                return app;
+            }).collect(Collectors.toList())).
+                    stream().
+                    // an entry written by the backfill may be outdated
+                    filter(dynamoDBApplication -> isInGroups(dynamoDBApplication, groupIds)).
+                    filter(dynamoDBApplication -> status.contains(dynamoDBApplication.getStatus())).
+                    map(this::convert).
+                    collect(Collectors.toSet());
         } else {
             return Collections.emptySet();
         }
@@ -102,17 +131,37 @@ public class DynamoDBApplicationRepository implements ApplicationRepository {
 
     @Override
     public Set<Application> findByName(String partialName) throws TechnicalException {
-        return mapper.scan(DynamoDBApplication.class, new DynamoDBScanExpression().
-                withProjectionExpression("id, #n").withExpressionAttributeNames(Collections.singletonMap("#n", "name"))).stream().
-                filter(dynamoDBApplication -> dynamoDBApplication.getName().toUpperCase().contains(partialName.toUpperCase())).
-                map(dynamoDBApplication -> mapper.load(DynamoDBApplication.class, dynamoDBApplication.getId()))
-                .map(this::convert)
-                .collect(Collectors.toSet());
+        String upperCasePartialName = partialName.toUpperCase();
+        Set<String> applicationIds = nameIndexRepository.isReady() ? nameIndexRepository.findCandidateIds(partialName) : null;
+        if (applicationIds == null) {
+            // too short to be indexed, or not indexed yet
+            applicationIds = DynamoDBStreams.stream(mapper.scan(DynamoDBApplication.class, new DynamoDBScanExpression().
+                    withProjectionExpression("id, #n").withExpressionAttributeNames(Collections.singletonMap("#n", "name")),
+                    DynamoDBStreams.ITERATION_ONLY_CONFIG)).
+                    filter(dynamoDBApplication -> dynamoDBApplication.getName().toUpperCase().contains(upperCasePartialName)).
+                    map(DynamoDBApplication::getId).
+                    collect(Collectors.toSet());
+        }
+        if (applicationIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        return batchLoader.load(DynamoDBApplication.class, applicationIds.stream().map(id -> {
+            DynamoDBApplication app = new DynamoDBApplication();
+            app.setId(id);
+            return app;
+        }).collect(Collectors.toList())).
+                stream().
+                filter(dynamoDBApplication -> dynamoDBApplication.getName().toUpperCase().contains(upperCasePartialName)).
+                map(this::convert).
+                collect(Collectors.toSet());
     }
 
     @Override
     public Optional<Application> findById(String id) throws TechnicalException {
-        DynamoDBApplication load = mapper.load(DynamoDBApplication.class, id);
+        DynamoDBApplication key = new DynamoDBApplication();
+        key.setId(id);
+        DynamoDBApplication load = loadCoalescer.load(DynamoDBApplication.class, key);
         return Optional.ofNullable(convert(load));
     }
 
@@ -128,6 +177,8 @@ public class DynamoDBApplicationRepository implements ApplicationRepository {
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        groupIndexRepository.update(DynamoDBGroupIndexRepository.APPLICATION, application.getId(), null, application.getGroups());
+        nameIndexRepository.update(application.getId(), null, application.getName());
         return application;
     }
 
@@ -137,28 +188,13 @@ public class DynamoDBApplicationRepository implements ApplicationRepository {
             throw new IllegalStateException("Trying to update null");
         }
 
-        DynamoDBApplication oldApplication = mapper.load(DynamoDBApplication.class, application.getId());
+        DynamoDBApplication oldApplication = conditionalWriter.replace(DynamoDBApplication.class, convert(application));
         if(oldApplication == null) {
             throw new IllegalStateException("Unknown application " + application.getId());
         }
 
-        oldApplication.setName(application.getName());
-        oldApplication.setDescription(application.getDescription());
-        oldApplication.setCreatedAt(application.getCreatedAt().getTime());
-        oldApplication.setUpdatedAt(application.getUpdatedAt().getTime());
-        oldApplication.setType(application.getType());
-        oldApplication.setGroups(application.getGroups());
-        oldApplication.setStatus(application.getStatus().name());
-
-        mapper.save(
-                oldApplication,
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(oldApplication.getId())).
-                                withExists(true)
-                )
-        );
+        groupIndexRepository.update(DynamoDBGroupIndexRepository.APPLICATION, application.getId(), oldApplication.getGroups(), application.getGroups());
+        nameIndexRepository.update(application.getId(), oldApplication.getName(), application.getName());
         return application;
     }
 
@@ -167,9 +203,34 @@ public class DynamoDBApplicationRepository implements ApplicationRepository {
         if (id == null) {
             throw new IllegalArgumentException("Trying to delete null");
         }
+        DynamoDBApplication previous = mapper.load(DynamoDBApplication.class, id);
         DynamoDBApplication dynamoDBApplication = new DynamoDBApplication();
         dynamoDBApplication.setId(id);
         mapper.delete(dynamoDBApplication);
+        if (previous != null) {
+            groupIndexRepository.delete(DynamoDBGroupIndexRepository.APPLICATION, id, previous.getGroups());
+            nameIndexRepository.delete(id, previous.getName());
+        }
+    }
+
+    /**
+     * Rebuild the group index from the groups of all the apis and applications.
+     * It runs on startup until it has completed once, see {@link io.gravitee.repository.dynamodb.common.IndexBackfills}.
+     */
+    public void reindexGroups() throws TechnicalException {
+        groupIndexRepository.backfill();
+    }
+
+    private static boolean isInGroups(DynamoDBApplication dynamoDBApplication, Collection<String> groupIds) {
+        return dynamoDBApplication.getGroups() != null && !Collections.disjoint(dynamoDBApplication.getGroups(), groupIds);
+    }
+
+    /**
+     * Rebuild the name index from the names of all the applications.
+     * It runs on startup until it has completed once, see {@link io.gravitee.repository.dynamodb.common.IndexBackfills}.
+     */
+    public void reindexNames() throws TechnicalException {
+        nameIndexRepository.backfill();
     }
 
     private Application convert(DynamoDBApplication dynamoDBApplication) {
@@ -21,6 +21,7 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import io.gravitee.common.data.domain.Page;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBEvent;
@@ -126,19 +127,19 @@ public class DynamoDBEventRepository implements EventRepository {
             throw new IllegalStateException("Event to update must have an id");
         }
 
-        if (!findById(event.getId()).isPresent()) {
+        try {
+            mapper.save(
+                    convert(event),
+                    new DynamoDBSaveExpression().withExpectedEntry(
+                            "id",
+                            new ExpectedAttributeValue().
+                                    withValue(new AttributeValue().withS(event.getId())).
+                                    withExists(true)
+                    )
+            );
+        } catch (ConditionalCheckFailedException e) {
             throw new IllegalStateException(String.format("No event found with id [%s]", event.getId()));
         }
-
-        mapper.save(
-                convert(event),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(event.getId())).
-                                withExists(true)
-                )
-        );
         return event;
     }
 
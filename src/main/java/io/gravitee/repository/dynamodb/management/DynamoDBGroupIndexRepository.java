@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchWrites;
+import io.gravitee.repository.dynamodb.common.DynamoDBStreams;
+import io.gravitee.repository.dynamodb.common.IndexBackfill;
+import io.gravitee.repository.dynamodb.common.IndexBackfills;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBApi;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBApplication;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBGroupIndex;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Maintain the (group, entity type, entity id) index used to find apis and applications by group without scanning.
+ *
+ * @author GraviteeSource Team
+ */
+@Repository
+public class DynamoDBGroupIndexRepository {
+
+    static final String API = "API";
+    static final String APPLICATION = "APPLICATION";
+
+    @Autowired
+    private DynamoDBMapper mapper;
+
+    @Autowired
+    private ExecutorService dynamoDBExecutor;
+
+    @Autowired
+    private IndexBackfills indexBackfills;
+
+    private IndexBackfill backfill;
+
+    @PostConstruct
+    void init() {
+        backfill = indexBackfills.register(DynamoDBGroupIndex.class.getSimpleName(), this::reindex);
+    }
+
+    /**
+     * @return false until the groups of the apis and applications written before the index existed are indexed,
+     * the index must not be read meanwhile
+     */
+    boolean isReady() {
+        return backfill.isReady();
+    }
+
+    /**
+     * Index the groups of all the apis and applications, then read from the index.
+     */
+    void backfill() throws TechnicalException {
+        backfill.run();
+    }
+
+    void update(String entityType, String entityId, Set<String> previousGroups, Set<String> newGroups) throws TechnicalException {
+        Set<String> previous = previousGroups == null ? Collections.emptySet() : previousGroups;
+        Set<String> next = newGroups == null ? Collections.emptySet() : newGroups;
+
+        List<DynamoDBGroupIndex> toDelete = previous.stream().
+                filter(group -> !next.contains(group)).
+                map(group -> convert(group, entityType, entityId)).
+                collect(Collectors.toList());
+        List<DynamoDBGroupIndex> toAdd = next.stream().
+                filter(group -> !previous.contains(group)).
+                map(group -> convert(group, entityType, entityId)).
+                collect(Collectors.toList());
+
+        DynamoDBBatchWrites.delete(mapper, toDelete);
+        DynamoDBBatchWrites.save(mapper, toAdd);
+    }
+
+    void delete(String entityType, String entityId, Set<String> groups) throws TechnicalException {
+        update(entityType, entityId, groups, null);
+    }
+
+    /**
+     * @return the ids of the entities of the given type belonging to at least one of the groups
+     */
+    Set<String> findEntityIds(String entityType, Collection<String> groupIds) throws TechnicalException {
+        List<Future<List<String>>> futures = new ArrayList<>(groupIds.size());
+        for (String groupId : new HashSet<>(groupIds)) {
+            futures.add(dynamoDBExecutor.submit(() -> findEntityIds(entityType, groupId)));
+        }
+
+        Set<String> entityIds = new HashSet<>();
+        try {
+            for (Future<List<String>> future : futures) {
+                entityIds.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while searching " + entityType + " by groups", e);
+        } catch (ExecutionException e) {
+            throw new TechnicalException("An error occurs while searching " + entityType + " by groups", e.getCause());
+        }
+        return entityIds;
+    }
+
+    private void reindex() throws TechnicalException {
+        Iterator<DynamoDBApi> apis = mapper.scan(DynamoDBApi.class, new DynamoDBScanExpression().
+                withProjectionExpression("id, groups"), DynamoDBStreams.ITERATION_ONLY_CONFIG).iterator();
+        while (apis.hasNext()) {
+            DynamoDBApi api = apis.next();
+            update(API, api.getId(), null, api.getGroups());
+        }
+        Iterator<DynamoDBApplication> applications = mapper.scan(DynamoDBApplication.class, new DynamoDBScanExpression().
+                withProjectionExpression("id, groups"), DynamoDBStreams.ITERATION_ONLY_CONFIG).iterator();
+        while (applications.hasNext()) {
+            DynamoDBApplication application = applications.next();
+            update(APPLICATION, application.getId(), null, application.getGroups());
+        }
+    }
+
+    private List<String> findEntityIds(String entityType, String groupId) {
+        DynamoDBGroupIndex hashKey = new DynamoDBGroupIndex();
+        hashKey.setGroup(groupId);
+        return mapper.query(DynamoDBGroupIndex.class, new DynamoDBQueryExpression<DynamoDBGroupIndex>().
+                withConsistentRead(false).
+                withHashKeyValues(hashKey).
+                withRangeKeyCondition("reference", new Condition().
+                        withComparisonOperator(ComparisonOperator.BEGINS_WITH).
+                        withAttributeValueList(new AttributeValue().withS(entityType + ":")))).
+                stream().
+                map(DynamoDBGroupIndex::getEntityId).
+                collect(Collectors.toList());
+    }
+
+    private DynamoDBGroupIndex convert(String group, String entityType, String entityId) {
+        DynamoDBGroupIndex index = new DynamoDBGroupIndex();
+        index.setGroup(group);
+        index.setReference(entityType + ":" + entityId);
+        index.setEntityType(entityType);
+        index.setEntityId(entityId);
+        return index;
+    }
+}
@@ -17,7 +17,10 @@ package io.gravitee.repository.dynamodb.management;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.*;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.ReferenceDataCache;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBGroup;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.GroupRepository;
@@ -40,10 +43,15 @@ public class DynamoDBGroupRepository implements GroupRepository {
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     @Override
     public Set<Group> findAll() throws TechnicalException {
-        PaginatedScanList<DynamoDBGroup> dynamoDBGroups = mapper.scan(DynamoDBGroup.class, new DynamoDBScanExpression());
-        return dynamoDBGroups.stream().map(this::convert).collect(Collectors.toSet());
+        return referenceDataCache.findAll(DynamoDBGroup.class).stream().map(this::convert).collect(Collectors.toSet());
     }
 
     @Override
@@ -54,17 +62,14 @@ public class DynamoDBGroupRepository implements GroupRepository {
 
     @Override
     public Set<Group> findByIds(Set<String> ids) throws TechnicalException {
-        Map<String, List<Object>> result = mapper.batchLoad(ids.stream().map(id -> {
+        return batchLoader.load(DynamoDBGroup.class, ids.stream().map(id -> {
             DynamoDBGroup group = new DynamoDBGroup();
             group.setId(id);
             return group;
-        }).collect(Collectors.toSet()));
-
-        if (result != null && !result.isEmpty()) {
-            List<Object> groups = result.entrySet().iterator().next().getValue();
-            return groups.stream().map(o -> convert((DynamoDBGroup)o)).collect(Collectors.toSet());
-        }
-        return Collections.emptySet();
+        }).collect(Collectors.toList())).
+                stream().
+                map(this::convert).
+                collect(Collectors.toSet());
     }
 
     @Override
@@ -82,6 +87,7 @@ public class DynamoDBGroupRepository implements GroupRepository {
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        referenceDataCache.invalidate(DynamoDBGroup.class);
         return group;
     }
 
@@ -91,18 +97,20 @@ public class DynamoDBGroupRepository implements GroupRepository {
             throw new IllegalStateException("Group must not be null");
         }
 
-        if (!findById(group.getId()).isPresent()) {
+        try {
+            mapper.save(
+                    convert(group),
+                    new DynamoDBSaveExpression().withExpectedEntry(
+                            "id",
+                            new ExpectedAttributeValue().
+                                    withValue(new AttributeValue().withS(group.getId())).
+                                    withExists(true)
+                    )
+            );
+        } catch (ConditionalCheckFailedException e) {
             throw new IllegalStateException(String.format("No group found with id [%s]", group.getId()));
         }
-        mapper.save(
-                convert(group),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(group.getId())).
-                                withExists(true)
-                )
-        );
+        referenceDataCache.invalidate(DynamoDBGroup.class);
         return group;
     }
 
@@ -114,6 +122,7 @@ public class DynamoDBGroupRepository implements GroupRepository {
         DynamoDBGroup group = new DynamoDBGroup();
         group.setId(id);
         mapper.delete(group);
+        referenceDataCache.invalidate(DynamoDBGroup.class);
     }
 
     private Group convert(DynamoDBGroup dynamoDBGroup) {
@@ -22,6 +22,9 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import io.gravitee.repository.dynamodb.common.AdaptiveFanOut;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.DynamoDBConditionalWriter;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBMembership;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.MembershipRepository;
@@ -31,10 +34,13 @@ import io.gravitee.repository.management.model.RoleScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Nicolas GERAUD (nicolas.geraud at graviteesource.com) 
@@ -48,18 +54,45 @@ public class DynamoDBMembershipRepository implements MembershipRepository {
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    @Qualifier("membershipQueryFanOut")
+    private AdaptiveFanOut queryFanOut;
+
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    private DynamoDBConditionalWriter conditionalWriter;
+
+    @Autowired
+    private DynamoDBMembershipRoleRepository membershipRoleRepository;
+
+    @Autowired
+    private DynamoDBPermissionRepository permissionRepository;
+
+    /**
+     * Rebuild the role projection from all the memberships.
+     * It runs on startup until it has completed once, see {@link io.gravitee.repository.dynamodb.common.IndexBackfills}.
+     */
+    public void reindexRoles() throws TechnicalException {
+        membershipRoleRepository.backfill();
+    }
+
     @Override
     public Membership create(Membership membership) throws TechnicalException {
         if (membership == null) {
             throw new IllegalArgumentException("Trying to create null");
         }
+        DynamoDBMembership dynamoDBMembership = convert(membership);
         mapper.save(
-                convert(membership),
+                dynamoDBMembership,
                 new DynamoDBSaveExpression().withExpectedEntry(
                         "id",
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        membershipRoleRepository.create(dynamoDBMembership);
+        permissionRepository.invalidate(membership.getUserId());
         return membership;
     }
 
@@ -69,19 +102,12 @@ public class DynamoDBMembershipRepository implements MembershipRepository {
             throw new IllegalStateException("Trying to update null");
         }
         DynamoDBMembership dynamoDBMembership = convert(membership);
-        DynamoDBMembership load = mapper.load(DynamoDBMembership.class, dynamoDBMembership.getId());
+        DynamoDBMembership load = conditionalWriter.replace(DynamoDBMembership.class, dynamoDBMembership);
         if (load == null) {
             throw new IllegalStateException(String.format("No membership found with id [%s]", dynamoDBMembership.getId()));
         }
-        mapper.save(
-                dynamoDBMembership,
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(dynamoDBMembership.getId())).
-                                withExists(true)
-                )
-        );
+        membershipRoleRepository.update(load, dynamoDBMembership);
+        permissionRepository.invalidate(membership.getUserId());
         return membership;
     }
 
@@ -91,7 +117,10 @@ public class DynamoDBMembershipRepository implements MembershipRepository {
             throw new IllegalArgumentException("Trying to delete null");
         }
         DynamoDBMembership dynamoDBMembership = convert(membership);
+        DynamoDBMembership load = mapper.load(DynamoDBMembership.class, dynamoDBMembership.getId());
         mapper.delete(dynamoDBMembership);
+        membershipRoleRepository.delete(load == null ? dynamoDBMembership : load);
+        permissionRepository.invalidate(membership.getUserId());
     }
 
     @Override
@@ -105,24 +134,25 @@ public class DynamoDBMembershipRepository implements MembershipRepository {
 
     @Override
     public Set<Membership> findByIds(String userId, MembershipReferenceType referenceType, Set<String> referenceIds) throws TechnicalException {
-        Map<String, List<Object>> result = mapper.batchLoad(referenceIds.stream().map(referenceId -> {
+        return batchLoader.load(DynamoDBMembership.class, referenceIds.stream().map(referenceId -> {
             DynamoDBMembership dynamoDBMembership = new DynamoDBMembership();
             dynamoDBMembership.setId(getMembershipKey(userId, referenceType.name(), referenceId));
             return dynamoDBMembership;
-        }).collect(Collectors.toSet()));
-
-        if (result != null && !result.isEmpty()) {
-            List<Object> memberships = result.entrySet().iterator().next().getValue();
-            return memberships.stream().map(o -> convert((DynamoDBMembership)o)).collect(Collectors.toSet());
-        }
-        return Collections.emptySet();
+        }).collect(Collectors.toList())).
+                stream().
+                map(this::convert).
+                collect(Collectors.toSet());
     }
 
     @Override
     public Set<Membership> findByReferenceAndRole(MembershipReferenceType membershipReferenceType, String referenceId, RoleScope roleScope, String roleName) throws TechnicalException {
+        String membershipType = convertRoleToType(roleScope, roleName);
+        if (membershipType != null && membershipRoleRepository.isReady()) {
+            return findByIdsAndRole(membershipRoleRepository.findMembershipIdsByReference(
+                    membershipReferenceType.name(), referenceId, membershipType), membershipType);
+        }
         DynamoDBMembership dynamoDBMembership = new DynamoDBMembership();
         dynamoDBMembership.setReferenceId(referenceId);
-        String membershipType = convertRoleToType(roleScope, roleName);
         return mapper.query(DynamoDBMembership.class, new DynamoDBQueryExpression<DynamoDBMembership>().
                 withConsistentRead(false).
                 withHashKeyValues(dynamoDBMembership).
@@ -132,37 +162,47 @@ public class DynamoDBMembershipRepository implements MembershipRepository {
                                 withS(membershipReferenceType.name())))).
 
                 stream().
-                filter(membership -> membershipType == null || membership.getRoles().contains(membershipType)).
+                filter(membership -> membershipType == null || hasRole(membership, membershipType)).
                 map(this::convert).
                 collect(Collectors.toSet());
     }
 
     @Override
     public Set<Membership> findByReferencesAndRole(MembershipReferenceType membershipReferenceType, List<String> referenceIds, RoleScope roleScope, String roleName) throws TechnicalException {
-        DynamoDBMembership dynamoDBMembership = new DynamoDBMembership();
-        Set<Membership> result = new HashSet<>();
         String membershipType = convertRoleToType(roleScope, roleName);
-        referenceIds.forEach(referenceId -> {
-                    dynamoDBMembership.setReferenceId(referenceId);
-                    result.addAll(
-                            mapper.query(DynamoDBMembership.class, new DynamoDBQueryExpression<DynamoDBMembership>().
-                                    withConsistentRead(false).
-                                    withHashKeyValues(dynamoDBMembership).
-                                    withRangeKeyCondition("referenceType", new Condition().
-                                            withComparisonOperator(ComparisonOperator.EQ).
-                                            withAttributeValueList(new AttributeValue().
-                                                    withS(membershipReferenceType.name())))).
-                                    stream().
-                                    filter(membership -> membershipType == null || membership.getRoles().contains(membershipType)).
-                                    map(this::convert).
-                                    collect(Collectors.toSet()));
-                }
-        );
+        if (membershipType != null && membershipRoleRepository.isReady()) {
+            Set<String> membershipIds = ConcurrentHashMap.newKeySet();
+            queryFanOut.forEach(new HashSet<>(referenceIds), referenceId -> membershipIds.addAll(
+                    membershipRoleRepository.findMembershipIdsByReference(membershipReferenceType.name(), referenceId, membershipType)));
+            return findByIdsAndRole(membershipIds, membershipType);
+        }
+        Set<Membership> result = ConcurrentHashMap.newKeySet();
+        queryFanOut.forEach(new HashSet<>(referenceIds), referenceId -> {
+            DynamoDBMembership dynamoDBMembership = new DynamoDBMembership();
+            dynamoDBMembership.setReferenceId(referenceId);
+            mapper.query(DynamoDBMembership.class, new DynamoDBQueryExpression<DynamoDBMembership>().
+                    withConsistentRead(false).
+                    withHashKeyValues(dynamoDBMembership).
+                    withRangeKeyCondition("referenceType", new Condition().
+                            withComparisonOperator(ComparisonOperator.EQ).
+                            withAttributeValueList(new AttributeValue().
+                                    withS(membershipReferenceType.name())))).
+                    stream().
+                    filter(membership -> membershipType == null || hasRole(membership, membershipType)).
+                    map(this::convert).
+                    forEach(result::add);
+        });
         return result;
     }
 
     @Override
     public Set<Membership> findByUserAndReferenceType(String userId, MembershipReferenceType membershipReferenceType) throws TechnicalException {
+        return queryByUserAndReferenceType(userId, membershipReferenceType).
+                map(this::convert).
+                collect(Collectors.toSet());
+    }
+
+    private Stream<DynamoDBMembership> queryByUserAndReferenceType(String userId, MembershipReferenceType membershipReferenceType) {
         DynamoDBMembership dynamoDBMembership = new DynamoDBMembership();
         dynamoDBMembership.setUserId(userId);
         return mapper.query(DynamoDBMembership.class, new DynamoDBQueryExpression<DynamoDBMembership>().
@@ -172,30 +212,45 @@ public class DynamoDBMembershipRepository implements MembershipRepository {
                         withComparisonOperator(ComparisonOperator.EQ).
                         withAttributeValueList(new AttributeValue().
                                 withS(membershipReferenceType.name())))).
-
-                stream().
-                map(this::convert).
-                collect(Collectors.toSet());
+                stream();
     }
 
     @Override
     public Set<Membership> findByUserAndReferenceTypeAndRole(String userId, MembershipReferenceType membershipReferenceType, RoleScope roleScope, String roleName) throws TechnicalException {
         String role = this.convertRoleToType(roleScope, roleName);
-        DynamoDBMembership dynamoDBMembership = new DynamoDBMembership();
-        dynamoDBMembership.setUserId(userId);
-        return mapper.query(DynamoDBMembership.class, new DynamoDBQueryExpression<DynamoDBMembership>().
-                withConsistentRead(false).
-                withHashKeyValues(dynamoDBMembership).
-                withRangeKeyCondition("referenceType", new Condition().
-                        withComparisonOperator(ComparisonOperator.EQ).
-                        withAttributeValueList(new AttributeValue().
-                                withS(membershipReferenceType.name())))).
+        if (role == null) {
+            return Collections.emptySet();
+        }
+        if (!membershipRoleRepository.isReady()) {
+            return queryByUserAndReferenceType(userId, membershipReferenceType).
+                    filter(membership -> hasRole(membership, role)).
+                    map(this::convert).
+                    collect(Collectors.toSet());
+        }
+        return findByIdsAndRole(membershipRoleRepository.findMembershipIdsByUser(
+                userId, membershipReferenceType.name(), role), role);
+    }
+
+    /**
+     * Load the memberships found in the role projection.
+     * The role is checked again since the projection is read with eventual consistency.
+     */
+    private Set<Membership> findByIdsAndRole(Collection<String> membershipIds, String role) throws TechnicalException {
+        return batchLoader.load(DynamoDBMembership.class, membershipIds.stream().map(id -> {
+            DynamoDBMembership dynamoDBMembership = new DynamoDBMembership();
+            dynamoDBMembership.setId(id);
+            return dynamoDBMembership;
+        }).collect(Collectors.toSet())).
                 stream().
-                filter(membership -> membership.getRoles() != null && !membership.getRoles().isEmpty() && membership.getRoles().contains(role)).
+                filter(membership -> hasRole(membership, role)).
                 map(this::convert).
                 collect(Collectors.toSet());
     }
 
+    private static boolean hasRole(DynamoDBMembership membership, String role) {
+        return membership.getRoles() != null && membership.getRoles().contains(role);
+    }
+
     private String getMembershipKey(String userId, String referenceType, String referenceId) {
         return userId + ":" + referenceType + ":" + referenceId;
     }
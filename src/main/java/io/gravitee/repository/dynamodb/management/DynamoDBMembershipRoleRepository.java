@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchWrites;
+import io.gravitee.repository.dynamodb.common.DynamoDBStreams;
+import io.gravitee.repository.dynamodb.common.IndexBackfill;
+import io.gravitee.repository.dynamodb.common.IndexBackfills;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBMembership;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBMembershipRole;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Maintain the (reference, role, user) projection used to find memberships by role without filtering every member.
+ *
+ * @author GraviteeSource Team
+ */
+@Repository
+public class DynamoDBMembershipRoleRepository {
+
+    static final String USER_INDEX = "MembershipRoleUser";
+
+    @Autowired
+    private DynamoDBMapper mapper;
+
+    @Autowired
+    private IndexBackfills indexBackfills;
+
+    private IndexBackfill backfill;
+
+    @PostConstruct
+    void init() {
+        backfill = indexBackfills.register(DynamoDBMembershipRole.class.getSimpleName(), this::reindex);
+    }
+
+    /**
+     * @return false until the memberships written before the projection existed are projected, the projection must
+     * not be read meanwhile
+     */
+    boolean isReady() {
+        return backfill.isReady();
+    }
+
+    /**
+     * Project the roles of all the memberships, then read from the projection.
+     */
+    void backfill() throws TechnicalException {
+        backfill.run();
+    }
+
+    void update(DynamoDBMembership previousMembership, DynamoDBMembership newMembership) throws TechnicalException {
+        Set<DynamoDBMembershipRole> previous = convert(previousMembership);
+        Set<DynamoDBMembershipRole> next = convert(newMembership);
+
+        List<DynamoDBMembershipRole> toDelete = previous.stream().
+                filter(role -> !next.contains(role)).
+                collect(Collectors.toList());
+        List<DynamoDBMembershipRole> toAdd = next.stream().
+                filter(role -> !previous.contains(role)).
+                collect(Collectors.toList());
+
+        DynamoDBBatchWrites.delete(mapper, toDelete);
+        DynamoDBBatchWrites.save(mapper, toAdd);
+    }
+
+    void create(DynamoDBMembership membership) throws TechnicalException {
+        update(null, membership);
+    }
+
+    void delete(DynamoDBMembership membership) throws TechnicalException {
+        update(membership, null);
+    }
+
+    /**
+     * @param role the role as stored in the membership, <code>roleScope:roleName</code>
+     * @return the ids of the memberships of the reference having the role
+     */
+    List<String> findMembershipIdsByReference(String referenceType, String referenceId, String role) {
+        DynamoDBMembershipRole hashKey = new DynamoDBMembershipRole();
+        hashKey.setReferenceId(referenceId);
+        return mapper.query(DynamoDBMembershipRole.class, new DynamoDBQueryExpression<DynamoDBMembershipRole>().
+                withConsistentRead(false).
+                withHashKeyValues(hashKey).
+                withRangeKeyCondition("role", beginsWith(referenceType, role))).
+                stream().
+                map(DynamoDBMembershipRole::getMembership).
+                collect(Collectors.toList());
+    }
+
+    /**
+     * @param role the role as stored in the membership, <code>roleScope:roleName</code>
+     * @return the ids of the memberships of the user on references of the given type, having the role
+     */
+    List<String> findMembershipIdsByUser(String userId, String referenceType, String role) {
+        DynamoDBMembershipRole hashKey = new DynamoDBMembershipRole();
+        hashKey.setUserId(userId);
+        return mapper.query(DynamoDBMembershipRole.class, new DynamoDBQueryExpression<DynamoDBMembershipRole>().
+                withIndexName(USER_INDEX).
+                withConsistentRead(false).
+                withHashKeyValues(hashKey).
+                withRangeKeyCondition("userRole", beginsWith(referenceType, role))).
+                stream().
+                map(DynamoDBMembershipRole::getMembership).
+                collect(Collectors.toList());
+    }
+
+    private void reindex() throws TechnicalException {
+        Iterator<DynamoDBMembership> memberships = mapper.scan(DynamoDBMembership.class, new DynamoDBScanExpression(),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG).iterator();
+        while (memberships.hasNext()) {
+            create(memberships.next());
+        }
+    }
+
+    private Condition beginsWith(String referenceType, String role) {
+        return new Condition().
+                withComparisonOperator(ComparisonOperator.BEGINS_WITH).
+                withAttributeValueList(new AttributeValue().withS(referenceType + "#" + role + "#"));
+    }
+
+    private Set<DynamoDBMembershipRole> convert(DynamoDBMembership membership) {
+        if (membership == null || membership.getRoles() == null) {
+            return Collections.emptySet();
+        }
+        return membership.getRoles().stream().map(role -> {
+            DynamoDBMembershipRole membershipRole = new DynamoDBMembershipRole();
+            membershipRole.setReferenceId(membership.getReferenceId());
+            membershipRole.setRole(membership.getReferenceType() + "#" + role + "#" + membership.getUserId());
+            membershipRole.setUserId(membership.getUserId());
+            membershipRole.setUserRole(membership.getReferenceType() + "#" + role + "#" + membership.getReferenceId());
+            membershipRole.setMembership(membership.getId());
+            return membershipRole;
+        }).collect(Collectors.toSet());
+    }
+}
@@ -19,20 +19,24 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.model.*;
+import io.gravitee.repository.dynamodb.common.AdaptiveFanOut;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.DynamoDBIndexManager;
+import io.gravitee.repository.dynamodb.common.IndexReadSwitch;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBGraviteeSchema;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBMetadata;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.MetadataRepository;
 import io.gravitee.repository.management.model.Metadata;
 import io.gravitee.repository.management.model.MetadataFormat;
 import io.gravitee.repository.management.model.MetadataReferenceType;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -42,11 +46,50 @@ import java.util.stream.Collectors;
 @Repository
 public class DynamoDBMetadataRepository implements MetadataRepository {
 
-    private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBMetadataRepository.class);
+    static final String REFERENCE_INDEX = "Reference";
+    static final String KEY_INDEX = "MetadataKey";
 
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private DynamoDBIndexManager indexManager;
+
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    @Qualifier("metadataQueryFanOut")
+    private AdaptiveFanOut queryFanOut;
+
+    private IndexReadSwitch keyIndexReadSwitch;
+
+    @PostConstruct
+    void init() {
+        keyIndexReadSwitch = new IndexReadSwitch(indexManager, DynamoDBGraviteeSchema.METADATA_TABLENAME, KEY_INDEX);
+    }
+
+    /**
+     * Create the key index on an existing metadata table.
+     * DynamoDB backfills it online, reads are switched over once it is active.
+     */
+    public void migrateIndexes(long timeoutMillis) throws TechnicalException {
+        indexManager.createAndWait(DynamoDBGraviteeSchema.METADATA_TABLENAME,
+                Arrays.asList(
+                        new AttributeDefinition().withAttributeName("key").withAttributeType(ScalarAttributeType.S),
+                        new AttributeDefinition().withAttributeName("referenceType").withAttributeType(ScalarAttributeType.S)),
+                new GlobalSecondaryIndex().
+                        withIndexName(KEY_INDEX).
+                        withKeySchema(
+                                new KeySchemaElement().withAttributeName("key").withKeyType(KeyType.HASH),
+                                new KeySchemaElement().withAttributeName("referenceType").withKeyType(KeyType.RANGE)
+                        ).
+                        withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
+                        withProvisionedThroughput(DynamoDBGraviteeSchema.METADATA_PRO_THROU),
+                timeoutMillis);
+        keyIndexReadSwitch.activate();
+    }
+
     @Override
     public Metadata create(Metadata item) throws TechnicalException {
 
@@ -69,10 +112,6 @@ public class DynamoDBMetadataRepository implements MetadataRepository {
             throw new IllegalStateException("Metadata to update must have a name");
         }
 
-        if (!findById(metadata.getKey(), metadata.getReferenceId(), metadata.getReferenceType()).isPresent()) {
-            throw new IllegalStateException(String.format("No metadata found with key [%s], reference id [%s] and type [%s]",
-                    metadata.getKey(), metadata.getReferenceId(), metadata.getReferenceType()));
-        }
         try {
             mapper.save(
                     convert(metadata),
@@ -85,8 +124,8 @@ public class DynamoDBMetadataRepository implements MetadataRepository {
             );
             return metadata;
         } catch (ConditionalCheckFailedException e) {
-            LOGGER.error(e.getMessage(), e);
-            return null;
+            throw new IllegalStateException(String.format("No metadata found with key [%s], reference id [%s] and type [%s]",
+                    metadata.getKey(), metadata.getReferenceId(), metadata.getReferenceType()));
         }
     }
 
@@ -113,9 +152,14 @@ public class DynamoDBMetadataRepository implements MetadataRepository {
 
     @Override
     public List<Metadata> findByReferenceTypeAndReferenceId(MetadataReferenceType referenceType, String referenceId) throws TechnicalException {
+        return findByReferenceTypeAndReferenceId(referenceType.name(), referenceId);
+    }
+
+    private List<Metadata> findByReferenceTypeAndReferenceId(String referenceType, String referenceId) {
         DynamoDBMetadata dynamoDBMetadata = new DynamoDBMetadata();
-        dynamoDBMetadata.setReferenceType(referenceType.name());
+        dynamoDBMetadata.setReferenceType(referenceType);
         DynamoDBQueryExpression<DynamoDBMetadata> queryExpression = new DynamoDBQueryExpression<DynamoDBMetadata>().
+                withIndexName(REFERENCE_INDEX).
                 withConsistentRead(false).
                 withHashKeyValues(dynamoDBMetadata);
         if (referenceId != null) {
@@ -131,11 +175,58 @@ public class DynamoDBMetadataRepository implements MetadataRepository {
                 collect(Collectors.toList());
     }
 
+    /**
+     * Load the metadata of several references at once.
+     * When the keys are given, the items are read with batch gets, otherwise the references are queried in parallel.
+     *
+     * @param keys the keys of the metadata to load, all if empty
+     * @return the metadata of each reference, by reference id
+     */
+    public Map<String, List<Metadata>> findByReferenceTypeAndReferenceIds(MetadataReferenceType referenceType,
+                                                                          Collection<String> referenceIds,
+                                                                          Collection<String> keys) throws TechnicalException {
+        Map<String, List<Metadata>> result = new ConcurrentHashMap<>(referenceIds.size());
+        referenceIds.forEach(referenceId -> result.put(referenceId, Collections.synchronizedList(new ArrayList<>())));
+
+        if (keys != null && !keys.isEmpty()) {
+            List<DynamoDBMetadata> ids = new ArrayList<>(referenceIds.size() * keys.size());
+            for (String referenceId : result.keySet()) {
+                for (String key : new HashSet<>(keys)) {
+                    DynamoDBMetadata dynamoDBMetadata = new DynamoDBMetadata();
+                    dynamoDBMetadata.setId(generateId(referenceType, referenceId, key));
+                    ids.add(dynamoDBMetadata);
+                }
+            }
+            batchLoader.load(DynamoDBMetadata.class, ids).forEach(dynamoDBMetadata ->
+                    result.get(dynamoDBMetadata.getReferenceId()).add(convert(dynamoDBMetadata)));
+        } else {
+            queryFanOut.forEach(result.keySet(), referenceId ->
+                    result.get(referenceId).addAll(findByReferenceTypeAndReferenceId(referenceType.name(), referenceId)));
+        }
+        return result;
+    }
+
     @Override
     public List<Metadata> findByKeyAndReferenceType(String key, MetadataReferenceType referenceType) throws TechnicalException {
+        if (keyIndexReadSwitch.isActive()) {
+            DynamoDBMetadata hashKey = new DynamoDBMetadata();
+            hashKey.setKey(key);
+            return mapper.
+                    query(DynamoDBMetadata.class, new DynamoDBQueryExpression<DynamoDBMetadata>().
+                            withIndexName(KEY_INDEX).
+                            withConsistentRead(false).
+                            withHashKeyValues(hashKey).
+                            withRangeKeyCondition("referenceType", new Condition().
+                                    withComparisonOperator(ComparisonOperator.EQ).
+                                    withAttributeValueList(new AttributeValue().withS(referenceType.name())))).
+                    stream().
+                    map(this::convert).
+                    collect(Collectors.toList());
+        }
         DynamoDBMetadata dynamoDBMetadata = new DynamoDBMetadata();
         dynamoDBMetadata.setReferenceType(referenceType.name());
         DynamoDBQueryExpression<DynamoDBMetadata> queryExpression = new DynamoDBQueryExpression<DynamoDBMetadata>().
+                withIndexName(REFERENCE_INDEX).
                 withConsistentRead(false).
                 withHashKeyValues(dynamoDBMetadata).
                 withFilterExpression("#k = :k").
@@ -15,12 +15,20 @@
  */
 package io.gravitee.repository.dynamodb.management;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.*;
 import com.amazonaws.util.ImmutableMapParameter;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.DynamoDBConditionalWriter;
+import io.gravitee.repository.dynamodb.common.DynamoDBIndexManager;
+import io.gravitee.repository.dynamodb.common.DynamoDBStreams;
+import io.gravitee.repository.dynamodb.common.ExpiringCache;
+import io.gravitee.repository.dynamodb.common.IndexReadSwitch;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBGraviteeSchema;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBPage;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.PageRepository;
@@ -31,12 +39,15 @@ import io.gravitee.repository.management.model.PageType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Date;
-import java.util.Optional;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -48,11 +59,85 @@ public class DynamoDBPageRepository implements PageRepository {
 
     private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBPageRepository.class);
 
+    static final String PARENT_INDEX = "PageParent";
+    static final String HOMEPAGE_INDEX = "PageHomepage";
+    /**
+     * Parent of the portal pages, which have no api.
+     */
+    static final String PORTAL_PARENT = "#portal";
+
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    private DynamoDBIndexManager indexManager;
+
+    @Autowired
+    private DynamoDBConditionalWriter conditionalWriter;
+
+    @Autowired
+    @Qualifier("pageStateCache")
+    private ExpiringCache<String, DynamoDBPage> stateCache;
+
+    @Autowired
+    private AmazonDynamoDB dynamo;
+
+    @Autowired
+    private ExecutorService dynamoDBExecutor;
+
+    private IndexReadSwitch indexReadSwitch;
+
+    @PostConstruct
+    void init() {
+        indexReadSwitch = new IndexReadSwitch(indexManager, DynamoDBGraviteeSchema.PAGE_TABLENAME, PARENT_INDEX, HOMEPAGE_INDEX);
+    }
+
+    /**
+     * Set the parent of the pages written before it existed, then create the parent and homepage indexes.
+     * DynamoDB backfills them online, reads are switched over once they are active.
+     */
+    public void migrateIndexes(long timeoutMillis) throws TechnicalException {
+        reindexParents();
+        stateCache.invalidateAll();
+        indexManager.createAndWait(DynamoDBGraviteeSchema.PAGE_TABLENAME,
+                Arrays.asList(attribute("parent", ScalarAttributeType.S), attribute("order", ScalarAttributeType.N)),
+                index(PARENT_INDEX, "parent"), timeoutMillis);
+        indexManager.createAndWait(DynamoDBGraviteeSchema.PAGE_TABLENAME,
+                Arrays.asList(attribute("homepageParent", ScalarAttributeType.S), attribute("order", ScalarAttributeType.N)),
+                index(HOMEPAGE_INDEX, "homepageParent"), timeoutMillis);
+        indexReadSwitch.activate();
+    }
+
+    private void reindexParents() {
+        DynamoDBStreams.stream(mapper.scan(DynamoDBPage.class, new DynamoDBScanExpression().
+                        withFilterExpression("attribute_not_exists(parent)").
+                        withProjectionExpression("id, api, homepage"),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG)).
+                forEach(dynamoDBPage -> {
+                    String parent = parent(dynamoDBPage.getApi());
+                    try {
+                        dynamo.updateItem(new UpdateItemRequest().
+                                withTableName(DynamoDBGraviteeSchema.PAGE_TABLENAME).
+                                withKey(Collections.singletonMap("id", new AttributeValue().withS(dynamoDBPage.getId()))).
+                                withUpdateExpression(dynamoDBPage.isHomepage() ?
+                                        "SET parent = :p, homepageParent = :p" :
+                                        "SET parent = :p").
+                                withConditionExpression("attribute_exists(id) and attribute_not_exists(parent)").
+                                withExpressionAttributeValues(Collections.singletonMap(":p", new AttributeValue().withS(parent))));
+                    } catch (ConditionalCheckFailedException e) {
+                        LOGGER.debug("Page {} has been updated or deleted meanwhile", dynamoDBPage.getId());
+                    }
+                });
+    }
+
     @Override
     public Collection<Page> findApiPageByApiIdAndHomepage(String apiId, boolean homepage) throws TechnicalException {
+        if (indexReadSwitch.isActive()) {
+            return findByParentAndHomepage(parent(apiId), homepage);
+        }
         return mapper.scan(
                 DynamoDBPage.class,
                 new DynamoDBScanExpression().
@@ -67,6 +152,9 @@ public class DynamoDBPageRepository implements PageRepository {
 
     @Override
     public Collection<Page> findApiPageByApiId(String apiId) throws TechnicalException {
+        if (indexReadSwitch.isActive()) {
+            return query(PARENT_INDEX, hashKey(parent(apiId), null));
+        }
         return mapper.scan(
                 DynamoDBPage.class,
                 new DynamoDBScanExpression().
@@ -80,12 +168,18 @@ public class DynamoDBPageRepository implements PageRepository {
 
     @Override
     public Integer findMaxApiPageOrderByApiId(String apiId) throws TechnicalException {
+        if (indexReadSwitch.isActive()) {
+            return findMaxOrder(parent(apiId));
+        }
         Optional<Integer> first = findApiPageByApiId(apiId).stream().map(Page::getOrder).max(Integer::compare);
         return first.orElse(0);
     }
 
     @Override
     public Collection<Page> findPortalPageByHomepage(boolean homepage) throws TechnicalException {
+        if (indexReadSwitch.isActive()) {
+            return findByParentAndHomepage(PORTAL_PARENT, homepage);
+        }
         return mapper.scan(
                 DynamoDBPage.class,
                 new DynamoDBScanExpression().
@@ -99,6 +193,9 @@ public class DynamoDBPageRepository implements PageRepository {
 
     @Override
     public Collection<Page> findPortalPages() throws TechnicalException {
+        if (indexReadSwitch.isActive()) {
+            return query(PARENT_INDEX, hashKey(PORTAL_PARENT, null));
+        }
         return mapper.scan(
                 DynamoDBPage.class,
                 new DynamoDBScanExpression().
@@ -110,13 +207,203 @@ public class DynamoDBPageRepository implements PageRepository {
 
     @Override
     public Integer findMaxPortalPageOrder() throws TechnicalException {
+        if (indexReadSwitch.isActive()) {
+            return findMaxOrder(PORTAL_PARENT);
+        }
         Optional<Integer> first = findPortalPages().stream().map(Page::getOrder).max(Integer::compare);
         return first.orElse(0);
     }
 
+    private Collection<Page> findByParentAndHomepage(String parent, boolean homepage) throws TechnicalException {
+        if (homepage) {
+            return query(HOMEPAGE_INDEX, hashKey(null, parent));
+        }
+        return query(PARENT_INDEX, hashKey(parent, null)).stream().
+                filter(page -> !page.isHomepage()).
+                collect(Collectors.toList());
+    }
+
+    /**
+     * Query the keys of the pages from a keys-only index, then load them.
+     *
+     * @return the pages sorted by order
+     */
+    private List<Page> query(String indexName, DynamoDBPage hashKey) throws TechnicalException {
+        List<DynamoDBPage> keys = mapper.query(DynamoDBPage.class, new DynamoDBQueryExpression<DynamoDBPage>().
+                withIndexName(indexName).
+                withConsistentRead(false).
+                withHashKeyValues(hashKey));
+        Map<String, DynamoDBPage> pages = batchLoader.load(DynamoDBPage.class, keys).
+                stream().
+                collect(Collectors.toMap(DynamoDBPage::getId, Function.identity()));
+        return keys.stream().
+                map(key -> pages.get(key.getId())).
+                filter(Objects::nonNull).
+                map(this::convert).
+                collect(Collectors.toList());
+    }
+
+    private Integer findMaxOrder(String parent) {
+        List<DynamoDBPage> last = mapper.queryPage(DynamoDBPage.class, new DynamoDBQueryExpression<DynamoDBPage>().
+                withIndexName(PARENT_INDEX).
+                withConsistentRead(false).
+                withHashKeyValues(hashKey(parent, null)).
+                withScanIndexForward(false).
+                withLimit(1)).
+                getResults();
+        return last.isEmpty() ? 0 : last.get(0).getOrder();
+    }
+
+    private DynamoDBPage hashKey(String parent, String homepageParent) {
+        DynamoDBPage hashKey = new DynamoDBPage();
+        hashKey.setParent(parent);
+        hashKey.setHomepageParent(homepageParent);
+        return hashKey;
+    }
+
+    private String parent(String api) {
+        return api == null ? PORTAL_PARENT : api;
+    }
+
+    private AttributeDefinition attribute(String name, ScalarAttributeType type) {
+        return new AttributeDefinition().withAttributeName(name).withAttributeType(type);
+    }
+
+    private GlobalSecondaryIndex index(String indexName, String hashKey) {
+        return new GlobalSecondaryIndex().
+                withIndexName(indexName).
+                withKeySchema(
+                        new KeySchemaElement().withAttributeName(hashKey).withKeyType(KeyType.HASH),
+                        new KeySchemaElement().withAttributeName("order").withKeyType(KeyType.RANGE)
+                ).
+                withProjection(new Projection().withProjectionType(ProjectionType.KEYS_ONLY)).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.PAGE_PRO_THROU);
+    }
+
+    /**
+     * Set the order of several pages at once, only the order and the update date are written.
+     * The pages are updated in parallel. There is no transaction support in this client, so when one of the
+     * updates fails, the pages already updated are set back to their previous order, or to no order if they had none.
+     *
+     * @param orders the new order of the pages, by id
+     * @param previousOrders the order of the pages as known by the caller, by id. When given, a page is only updated
+     *                       if it still has this order.
+     * @throws IllegalStateException if a page does not exist or has been reordered meanwhile
+     */
+    public void updateOrders(Map<String, Integer> orders, Map<String, Integer> previousOrders) throws TechnicalException {
+        if (orders == null) {
+            throw new IllegalArgumentException("Trying to reorder null");
+        }
+
+        // the cached pages no longer match the stored ones
+        orders.keySet().forEach(stateCache::invalidate);
+        Map<String, Future<Integer>> updates = new LinkedHashMap<>();
+        orders.forEach((id, order) -> updates.put(id, dynamoDBExecutor.submit(() ->
+                updateOrder(id, order, previousOrders == null ? null : previousOrders.get(id)))));
+
+        Map<String, Integer> updated = new HashMap<>();
+        List<String> conflicts = new ArrayList<>();
+        Throwable error = null;
+        for (Map.Entry<String, Future<Integer>> update : updates.entrySet()) {
+            try {
+                updated.put(update.getKey(), getUninterruptibly(update.getValue()));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ConditionalCheckFailedException) {
+                    conflicts.add(update.getKey());
+                } else {
+                    error = e.getCause();
+                }
+            }
+        }
+        orders.keySet().forEach(stateCache::invalidate);
+
+        if (conflicts.isEmpty() && error == null) {
+            return;
+        }
+
+        List<Future<Integer>> rollbacks = new ArrayList<>(updated.size());
+        updated.forEach((id, previousOrder) -> rollbacks.add(dynamoDBExecutor.submit(() ->
+                updateOrder(id, previousOrder, orders.get(id)))));
+        for (Future<Integer> rollback : rollbacks) {
+            try {
+                getUninterruptibly(rollback);
+            } catch (ExecutionException e) {
+                LOGGER.error("Unable to restore the order of a page after a failed reorder", e.getCause());
+            }
+        }
+
+        if (error != null) {
+            throw new TechnicalException("An error occurs while reordering pages", error);
+        }
+        throw new IllegalStateException(String.format("Pages %s do not exist or have been reordered meanwhile", conflicts));
+    }
+
+    /**
+     * The update date is changed too, so that the nodes which cached the page do not take its previous order for
+     * the stored one.
+     *
+     * @param order the new order, null to remove it
+     * @return the previous order, null if the page had none
+     */
+    private Integer updateOrder(String id, Integer order, Integer expectedOrder) {
+        Map<String, String> names = new HashMap<>();
+        names.put("#o", "order");
+        names.put("#u", "updatedAt");
+        Map<String, AttributeValue> eav = new HashMap<>();
+        eav.put(":u", new AttributeValue().withN(Long.toString(System.currentTimeMillis())));
+        String update = "SET #u = :u";
+        if (order != null) {
+            eav.put(":o", new AttributeValue().withN(Integer.toString(order)));
+            update += ", #o = :o";
+        } else {
+            update += " REMOVE #o";
+        }
+        String condition = "attribute_exists(id)";
+        if (expectedOrder != null) {
+            eav.put(":expected", new AttributeValue().withN(Integer.toString(expectedOrder)));
+            condition += " and #o = :expected";
+        }
+
+        UpdateItemResult result = dynamo.updateItem(new UpdateItemRequest().
+                withTableName(DynamoDBGraviteeSchema.PAGE_TABLENAME).
+                withKey(Collections.singletonMap("id", new AttributeValue().withS(id))).
+                withUpdateExpression(update).
+                withConditionExpression(condition).
+                withExpressionAttributeNames(names).
+                withExpressionAttributeValues(eav).
+                withReturnValues(ReturnValue.UPDATED_OLD));
+
+        AttributeValue previous = result.getAttributes() == null ? null : result.getAttributes().get("order");
+        return previous == null ? null : Integer.valueOf(previous.getN());
+    }
+
+    /**
+     * Once sent, the updates are always awaited so that they can be rolled back.
+     */
+    private <T> T getUninterruptibly(Future<T> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     @Override
     public Optional<Page> findById(String id) throws TechnicalException {
+        long generation = stateCache.generation();
         DynamoDBPage load = mapper.load(DynamoDBPage.class, id);
+        if (load != null) {
+            stateCache.put(id, load, generation);
+        }
         return Optional.ofNullable(convert(load));
     }
 
@@ -125,13 +412,16 @@ public class DynamoDBPageRepository implements PageRepository {
         if (page == null) {
             throw new IllegalArgumentException("Trying to create null");
         }
+        DynamoDBPage dynamoDBPage = convert(page);
+        long generation = stateCache.generation();
         mapper.save(
-                convert(page),
+                dynamoDBPage,
                 new DynamoDBSaveExpression().withExpectedEntry(
                         "id",
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        stateCache.put(page.getId(), dynamoDBPage, generation);
         return page;
     }
 
@@ -141,18 +431,27 @@ public class DynamoDBPageRepository implements PageRepository {
             throw new IllegalStateException("Page must not be null");
         }
 
-        if (!findById(page.getId()).isPresent()) {
-            throw new IllegalStateException(String.format("No page found with id [%s]", page.getId()));
+        DynamoDBPage dynamoDBPage = convert(page);
+        long generation = stateCache.generation();
+        // only the changed attributes are written when the stored page is known, the content rarely changes
+        DynamoDBPage previous = stateCache.get(page.getId());
+        if (previous == null || !conditionalWriter.updateChanged(DynamoDBPage.class, previous, dynamoDBPage, "updatedAt")) {
+            try {
+                mapper.save(
+                        dynamoDBPage,
+                        new DynamoDBSaveExpression().withExpectedEntry(
+                                "id",
+                                new ExpectedAttributeValue().
+                                        withValue(new AttributeValue().withS(page.getId())).
+                                        withExists(true)
+                        )
+                );
+            } catch (ConditionalCheckFailedException e) {
+                stateCache.invalidate(page.getId());
+                throw new IllegalStateException(String.format("No page found with id [%s]", page.getId()));
+            }
         }
-        mapper.save(
-                convert(page),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(page.getId())).
-                                withExists(true)
-                )
-        );
+        stateCache.put(page.getId(), dynamoDBPage, generation);
         return page;
     }
 
@@ -161,6 +460,7 @@ public class DynamoDBPageRepository implements PageRepository {
         if (id == null) {
             throw new IllegalArgumentException("Trying to delete null");
         }
+        stateCache.invalidate(id);
         DynamoDBPage page = new DynamoDBPage();
         page.setId(id);
         mapper.delete(page);
@@ -203,6 +503,10 @@ public class DynamoDBPageRepository implements PageRepository {
         DynamoDBPage dynamoDBPage = new DynamoDBPage();
         dynamoDBPage.setId(page.getId());
         dynamoDBPage.setApi(page.getApi());
+        dynamoDBPage.setParent(parent(page.getApi()));
+        if (page.isHomepage()) {
+            dynamoDBPage.setHomepageParent(dynamoDBPage.getParent());
+        }
         dynamoDBPage.setContent(page.getContent());
         dynamoDBPage.setCreatedAt(page.getCreatedAt().getTime());
         dynamoDBPage.setUpdatedAt(page.getUpdatedAt().getTime());
@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.ExpiringCache;
+import io.gravitee.repository.dynamodb.common.ReferenceDataCache;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBGraviteeSchema;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBMembership;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBRole;
+import io.gravitee.repository.exceptions.TechnicalException;
+import io.gravitee.repository.management.model.MembershipReferenceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Resolve and cache the permissions of a user on all the references they are a member of.
+ * A snapshot costs one query on the memberships of the user and batch gets on their roles.
+ * Each membership write increments a version of the user, stored in the reference data version table, and each role
+ * write increments the version of the roles in the {@link ReferenceDataCache}. A snapshot is only trusted after one
+ * GetItem has checked that the version of the user has not changed since it was loaded, and while the version of
+ * the roles has not changed, so that the writes made by any node are seen.
+ * While the versions cannot be read, the permissions are loaded on each call.
+ *
+ * @author GraviteeSource Team
+ */
+@Repository
+public class DynamoDBPermissionRepository {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBPermissionRepository.class);
+
+    private static final String VERSION_KEY_PREFIX = "permissions#";
+
+    // delay after a membership write during which the memberships index may not have seen it yet
+    private static final long INDEX_PROPAGATION_MILLIS = 1000;
+
+    @Autowired
+    private DynamoDBMapper mapper;
+
+    @Autowired
+    private AmazonDynamoDB dynamo;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    @Qualifier("permissionSnapshotCache")
+    private ExpiringCache<String, UserPermissions> cache;
+
+    @Autowired
+    @Qualifier("rolePermissionCache")
+    private ExpiringCache<String, PermissionBitmap> roleCache;
+
+    // the version of the roles the role cache was filled at
+    private volatile String roleVersion;
+
+    public UserPermissions findByUser(String userId) throws TechnicalException {
+        // the versions are read before the load, so a write made meanwhile makes the snapshot stale
+        String roleVersion = roleVersion();
+        Map<String, AttributeValue> userVersion = roleVersion == null ? null : userVersion(userId);
+        if (userVersion == null) {
+            return load(userId, null, false);
+        }
+        String version = number(userVersion, "version") + ':' + roleVersion;
+
+        UserPermissions permissions = cache.get(userId);
+        if (permissions != null && version.equals(permissions.getVersion())) {
+            return permissions;
+        }
+        long generation = cache.generation();
+        permissions = load(userId, version, true);
+        // the memberships are queried on an eventually consistent index, which may not contain the last write yet
+        if (System.currentTimeMillis() - Long.parseLong(number(userVersion, "writtenAt")) >= INDEX_PROPAGATION_MILLIS) {
+            cache.put(userId, permissions, generation);
+        }
+        return permissions;
+    }
+
+    /**
+     * Once the role is cached, the check does not allocate nor read DynamoDB, except for the version of the roles
+     * read at most once per reference data check interval.
+     *
+     * @param roleId the id of the role, scope:name, as stored in the memberships
+     * @param permission a permission mask plus the actions to check, see {@link PermissionBitmap}
+     */
+    public boolean hasPermission(String roleId, int permission) throws TechnicalException {
+        boolean rolesCached = roleVersion() != null;
+        PermissionBitmap permissions = rolesCached ? roleCache.get(roleId) : null;
+        if (permissions == null) {
+            permissions = findRolePermissions(Collections.singleton(roleId), rolesCached).getOrDefault(roleId, PermissionBitmap.EMPTY);
+        }
+        return permissions.hasPermission(permission);
+    }
+
+    /**
+     * Drop the snapshot of the user and increment its version so that the other nodes reload it.
+     * To be called after each write of a membership of the user.
+     */
+    void invalidate(String userId) {
+        cache.invalidate(userId);
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":one", new AttributeValue().withN("1"));
+        values.put(":now", new AttributeValue().withN(String.valueOf(System.currentTimeMillis())));
+        try {
+            dynamo.updateItem(new UpdateItemRequest().
+                    withTableName(DynamoDBGraviteeSchema.REFERENCE_DATA_VERSION_TABLENAME).
+                    withKey(versionKey(userId)).
+                    withUpdateExpression("ADD version :one SET writtenAt = :now").
+                    withExpressionAttributeValues(values));
+        } catch (AmazonClientException e) {
+            LOGGER.error("Unable to increment the permissions version of user {}, the other nodes will not reload them", userId, e);
+        }
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+        roleCache.invalidateAll();
+    }
+
+    /**
+     * Drop the cached roles when any node has written a role since they were cached.
+     *
+     * @return the version of the roles, null when it cannot be read and the cached roles cannot be trusted
+     */
+    private String roleVersion() {
+        String version = referenceDataCache.version(DynamoDBRole.class);
+        if (version != null && !version.equals(roleVersion)) {
+            roleCache.invalidateAll();
+            roleVersion = version;
+        }
+        return version;
+    }
+
+    /**
+     * @return the version of the memberships of the user and the date of their last write, null when it cannot be read
+     */
+    private Map<String, AttributeValue> userVersion(String userId) {
+        try {
+            Map<String, AttributeValue> item = dynamo.getItem(new GetItemRequest().
+                    withTableName(DynamoDBGraviteeSchema.REFERENCE_DATA_VERSION_TABLENAME).
+                    withKey(versionKey(userId)).
+                    withConsistentRead(true)).
+                    getItem();
+            return item == null ? Collections.emptyMap() : item;
+        } catch (AmazonClientException e) {
+            LOGGER.warn("Unable to read the permissions version of user {}, the permissions are not cached: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String number(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value == null ? "0" : value.getN();
+    }
+
+    private static Map<String, AttributeValue> versionKey(String userId) {
+        return Collections.singletonMap("id", new AttributeValue().withS(VERSION_KEY_PREFIX + userId));
+    }
+
+    private UserPermissions load(String userId, String version, boolean rolesCached) throws TechnicalException {
+        DynamoDBMembership hashKey = new DynamoDBMembership();
+        hashKey.setUserId(userId);
+        List<DynamoDBMembership> memberships = mapper.query(DynamoDBMembership.class, new DynamoDBQueryExpression<DynamoDBMembership>().
+                withIndexName("UserAndReferenceType").
+                withConsistentRead(false).
+                withHashKeyValues(hashKey));
+
+        // the roles of the memberships are stored as scope:name, which is also the id of the roles
+        Map<String, PermissionBitmap> roles = findRolePermissions(memberships.stream().
+                filter(membership -> membership.getRoles() != null).
+                flatMap(membership -> membership.getRoles().stream()).
+                collect(Collectors.toSet()), rolesCached);
+
+        Map<MembershipReferenceType, Map<String, PermissionBitmap>> permissions = new EnumMap<>(MembershipReferenceType.class);
+        for (DynamoDBMembership membership : memberships) {
+            PermissionBitmap bitmap = PermissionBitmap.EMPTY;
+            if (membership.getRoles() != null) {
+                for (String role : membership.getRoles()) {
+                    bitmap = bitmap.or(roles.getOrDefault(role, PermissionBitmap.EMPTY));
+                }
+            }
+            permissions.
+                    computeIfAbsent(MembershipReferenceType.valueOf(membership.getReferenceType()), type -> new HashMap<>()).
+                    merge(membership.getReferenceId(), bitmap, PermissionBitmap::or);
+        }
+        return new UserPermissions(userId, version, permissions);
+    }
+
+    /**
+     * @param rolesCached false when the cached roles cannot be trusted
+     * @return the permissions of the roles found, by id, from the cache or else with batch gets
+     */
+    private Map<String, PermissionBitmap> findRolePermissions(Set<String> roleIds, boolean rolesCached) throws TechnicalException {
+        Map<String, PermissionBitmap> roles = new HashMap<>(roleIds.size());
+        Set<DynamoDBRole> missing = new HashSet<>();
+        for (String id : roleIds) {
+            PermissionBitmap permissions = rolesCached ? roleCache.get(id) : null;
+            if (permissions != null) {
+                roles.put(id, permissions);
+            } else {
+                DynamoDBRole role = new DynamoDBRole();
+                role.setId(id);
+                missing.add(role);
+            }
+        }
+
+        long generation = roleCache.generation();
+        for (DynamoDBRole role : batchLoader.load(DynamoDBRole.class, missing)) {
+            PermissionBitmap permissions = DynamoDBRoleRepository.permissions(role);
+            if (rolesCached) {
+                roleCache.put(role.getId(), permissions, generation);
+            }
+            roles.put(role.getId(), permissions);
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.util.ImmutableMapParameter;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchWrites;
+import io.gravitee.repository.dynamodb.common.DynamoDBStreams;
+import io.gravitee.repository.dynamodb.common.IndexBackfill;
+import io.gravitee.repository.dynamodb.common.IndexBackfills;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBPlan;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBPlanApiIndex;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Maintain the (api, order, plan) adjacency list used to find the plans of an api without scanning.
+ *
+ * @author GraviteeSource Team
+ */
+@Repository
+public class DynamoDBPlanApiIndexRepository {
+
+    @Autowired
+    private DynamoDBMapper mapper;
+
+    @Autowired
+    private IndexBackfills indexBackfills;
+
+    private IndexBackfill backfill;
+
+    @PostConstruct
+    void init() {
+        backfill = indexBackfills.register(DynamoDBPlanApiIndex.class.getSimpleName(), this::reindex);
+    }
+
+    /**
+     * @return false until the plans written before the index existed are indexed, the index must not be read meanwhile
+     */
+    boolean isReady() {
+        return backfill.isReady();
+    }
+
+    /**
+     * Index the apis of all the plans, then read from the index.
+     */
+    void backfill() throws TechnicalException {
+        backfill.run();
+    }
+
+    void update(DynamoDBPlan previousPlan, DynamoDBPlan newPlan) throws TechnicalException {
+        Set<DynamoDBPlanApiIndex> previous = convert(previousPlan);
+        Set<DynamoDBPlanApiIndex> next = convert(newPlan);
+
+        List<DynamoDBPlanApiIndex> toDelete = previous.stream().
+                filter(index -> !next.contains(index)).
+                collect(Collectors.toList());
+        // the status is not part of the key, so an entry is also rewritten when only the status changes
+        List<DynamoDBPlanApiIndex> toSave = next.stream().
+                filter(index -> !previous.contains(index) || !Objects.equals(newPlan.getStatus(), previousPlan.getStatus())).
+                collect(Collectors.toList());
+
+        DynamoDBBatchWrites.delete(mapper, toDelete);
+        DynamoDBBatchWrites.save(mapper, toSave);
+    }
+
+    void create(DynamoDBPlan plan) throws TechnicalException {
+        DynamoDBBatchWrites.save(mapper, convert(plan));
+    }
+
+    void delete(DynamoDBPlan plan) throws TechnicalException {
+        DynamoDBBatchWrites.delete(mapper, convert(plan));
+    }
+
+    /**
+     * @param statuses the statuses to keep, all if empty
+     * @return the ids of the plans of the api, sorted by order
+     */
+    List<String> findPlanIds(String api, Collection<String> statuses) {
+        DynamoDBPlanApiIndex hashKey = new DynamoDBPlanApiIndex();
+        hashKey.setApi(api);
+        DynamoDBQueryExpression<DynamoDBPlanApiIndex> queryExpression = new DynamoDBQueryExpression<DynamoDBPlanApiIndex>().
+                withConsistentRead(false).
+                withHashKeyValues(hashKey);
+
+        if (statuses != null && !statuses.isEmpty()) {
+            Map<String, AttributeValue> eav = new HashMap<>();
+            StringJoiner statusValues = new StringJoiner(",");
+            int i = 0;
+            for (String status : statuses) {
+                String attr = ":s" + (i++);
+                eav.put(attr, new AttributeValue().withS(status));
+                statusValues.add(attr);
+            }
+            queryExpression.
+                    withFilterExpression("#s in (" + statusValues.toString() + ")").
+                    withExpressionAttributeNames(Collections.singletonMap("#s", "status")).
+                    withExpressionAttributeValues(eav);
+        }
+
+        return mapper.query(DynamoDBPlanApiIndex.class, queryExpression).
+                stream().
+                map(DynamoDBPlanApiIndex::getPlan).
+                collect(Collectors.toList());
+    }
+
+    private void reindex() throws TechnicalException {
+        Iterator<DynamoDBPlan> plans = mapper.scan(DynamoDBPlan.class, new DynamoDBScanExpression().
+                withProjectionExpression("id, apis, #o, #s").
+                withExpressionAttributeNames(ImmutableMapParameter.of("#o", "order", "#s", "status")),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG).iterator();
+        while (plans.hasNext()) {
+            create(plans.next());
+        }
+    }
+
+    private Set<DynamoDBPlanApiIndex> convert(DynamoDBPlan plan) {
+        if (plan == null || plan.getApis() == null) {
+            return Collections.emptySet();
+        }
+        return plan.getApis().stream().map(api -> {
+            DynamoDBPlanApiIndex index = new DynamoDBPlanApiIndex();
+            index.setApi(api);
+            index.setReference(sortableOrder(plan.getOrder()) + ":" + plan.getId());
+            index.setPlan(plan.getId());
+            index.setOrder(plan.getOrder());
+            index.setStatus(plan.getStatus());
+            return index;
+        }).collect(Collectors.toSet());
+    }
+
+    /**
+     * Shift the order to a positive value and pad it so that the lexical order matches the numerical one.
+     */
+    private String sortableOrder(int order) {
+        return String.format("%010d", (long) order - Integer.MIN_VALUE);
+    }
+}
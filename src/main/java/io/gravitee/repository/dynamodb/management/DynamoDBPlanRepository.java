@@ -17,10 +17,12 @@ package io.gravitee.repository.dynamodb.management;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.DynamoDBConditionalWriter;
+import io.gravitee.repository.dynamodb.common.DynamoDBLoadCoalescer;
+import io.gravitee.repository.dynamodb.common.DynamoDBScanner;
+import io.gravitee.repository.dynamodb.common.ExpiringCache;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBPlan;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.PlanRepository;
@@ -28,16 +30,13 @@ import io.gravitee.repository.management.model.Plan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
-import java.util.Collections;
-import java.util.Date;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.CONTAINS;
-
 /**
  * @author Nicolas GERAUD (nicolas.geraud at graviteesource.com) 
  * @author GraviteeSource Team
@@ -50,23 +49,84 @@ public class DynamoDBPlanRepository implements PlanRepository {
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    private DynamoDBScanner scanner;
+
+    @Autowired
+    private DynamoDBConditionalWriter conditionalWriter;
+
+    @Autowired
+    @Qualifier("planStateCache")
+    private ExpiringCache<String, DynamoDBPlan> stateCache;
+
+    @Autowired
+    private DynamoDBLoadCoalescer loadCoalescer;
+
+    @Autowired
+    private DynamoDBPlanApiIndexRepository planApiIndexRepository;
+
     @Override
     public Set<Plan> findByApi(String apiId) throws TechnicalException {
-        return mapper.scan(
-                DynamoDBPlan.class,
-                new DynamoDBScanExpression().
-                        withScanFilter(Collections.singletonMap(
-                                "apis", new Condition().
-                                        withComparisonOperator(CONTAINS).
-                                        withAttributeValueList(new AttributeValue().withS(apiId))))
-        ).stream().
+        return new LinkedHashSet<>(findByApiAndStatus(apiId));
+    }
+
+    /**
+     * @param statuses the statuses of the plans to load, all if empty
+     * @return the plans of the api, sorted by order
+     */
+    public List<Plan> findByApiAndStatus(String apiId, Plan.Status... statuses) throws TechnicalException {
+        List<String> statusNames = statuses == null ? Collections.emptyList() : Arrays.stream(statuses).map(Enum::name).collect(Collectors.toList());
+        if (!planApiIndexRepository.isReady()) {
+            return scanner.scan(DynamoDBPlan.class).
+                    filter(plan -> isPlanOf(plan, apiId, statusNames)).
+                    sorted(Comparator.comparingInt(DynamoDBPlan::getOrder)).
+                    map(this::convert).
+                    collect(Collectors.toList());
+        }
+
+        List<String> planIds = planApiIndexRepository.findPlanIds(apiId, statusNames);
+
+        Map<String, DynamoDBPlan> plans = batchLoader.load(DynamoDBPlan.class, planIds.stream().map(id -> {
+            DynamoDBPlan plan = new DynamoDBPlan();
+            plan.setId(id);
+            return plan;
+        }).collect(Collectors.toList())).
+                stream().
+                collect(Collectors.toMap(DynamoDBPlan::getId, Function.identity()));
+
+        return planIds.stream().
+                map(plans::get).
+                // an entry written by the backfill may be outdated
+                filter(plan -> plan != null && isPlanOf(plan, apiId, statusNames)).
                 map(this::convert).
-                collect(Collectors.toSet());
+                collect(Collectors.toList());
+    }
+
+    /**
+     * Rebuild the api index from the apis of all the plans.
+     * It runs on startup until it has completed once, see {@link io.gravitee.repository.dynamodb.common.IndexBackfills}.
+     */
+    public void reindexApis() throws TechnicalException {
+        planApiIndexRepository.backfill();
+    }
+
+    private static boolean isPlanOf(DynamoDBPlan plan, String apiId, Collection<String> statuses) {
+        return plan.getApis() != null && plan.getApis().contains(apiId) &&
+                (statuses.isEmpty() || statuses.contains(plan.getStatus()));
     }
 
     @Override
     public Optional<Plan> findById(String id) throws TechnicalException {
-        DynamoDBPlan load = mapper.load(DynamoDBPlan.class, id);
+        DynamoDBPlan key = new DynamoDBPlan();
+        key.setId(id);
+        long generation = stateCache.generation();
+        DynamoDBPlan load = loadCoalescer.load(DynamoDBPlan.class, key);
+        if (load != null) {
+            stateCache.put(id, load, generation);
+        }
         return Optional.ofNullable(convert(load));
     }
 
@@ -75,13 +135,17 @@ public class DynamoDBPlanRepository implements PlanRepository {
         if (plan == null) {
             throw new IllegalArgumentException("Trying to create null");
         }
+        DynamoDBPlan dynamoDBPlan = convert(plan);
+        long generation = stateCache.generation();
         mapper.save(
-                convert(plan),
+                dynamoDBPlan,
                 new DynamoDBSaveExpression().withExpectedEntry(
                         "id",
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        stateCache.put(plan.getId(), dynamoDBPlan, generation);
+        planApiIndexRepository.create(dynamoDBPlan);
         return plan;
     }
 
@@ -91,18 +155,19 @@ public class DynamoDBPlanRepository implements PlanRepository {
             throw new IllegalStateException("Plan to update must have an id");
         }
 
-        if (!findById(plan.getId()).isPresent()) {
-            throw new IllegalStateException(String.format("No plan found with id [%s]", plan.getId()));
+        DynamoDBPlan dynamoDBPlan = convert(plan);
+        long generation = stateCache.generation();
+        // only the changed attributes are written when the stored plan is known, the definition rarely changes
+        DynamoDBPlan previous = stateCache.get(plan.getId());
+        if (previous == null || !conditionalWriter.updateChanged(DynamoDBPlan.class, previous, dynamoDBPlan, "updatedAt")) {
+            previous = conditionalWriter.replace(DynamoDBPlan.class, dynamoDBPlan);
+            if (previous == null) {
+                stateCache.invalidate(plan.getId());
+                throw new IllegalStateException(String.format("No plan found with id [%s]", plan.getId()));
+            }
         }
-        mapper.save(
-                convert(plan),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(plan.getId())).
-                                withExists(true)
-                )
-        );
+        stateCache.put(plan.getId(), dynamoDBPlan, generation);
+        planApiIndexRepository.update(previous, dynamoDBPlan);
         return plan;
     }
 
@@ -111,9 +176,14 @@ public class DynamoDBPlanRepository implements PlanRepository {
         if (id == null) {
             throw new IllegalArgumentException("Trying to delete null");
         }
+        stateCache.invalidate(id);
+        DynamoDBPlan previous = mapper.load(DynamoDBPlan.class, id);
         DynamoDBPlan plan = new DynamoDBPlan();
         plan.setId(id);
         mapper.delete(plan);
+        if (previous != null) {
+            planApiIndexRepository.delete(previous);
+        }
     }
 
     private Plan convert(DynamoDBPlan dynamoDBPlan) {
@@ -16,10 +16,14 @@
 package io.gravitee.repository.dynamodb.management;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import io.gravitee.repository.dynamodb.common.AdaptiveFanOut;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBRatingAnswer;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.RatingAnswerRepository;
@@ -27,11 +31,11 @@ import io.gravitee.repository.management.model.RatingAnswer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.stream.Collectors.toList;
 
@@ -44,9 +48,22 @@ public class DynamoDBRatingAnswerRepository implements RatingAnswerRepository {
 
     private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBRatingAnswerRepository.class);
 
+    static final String RATING_INDEX = "RatingAnswer";
+
+    private static final DynamoDBMapperConfig CONSISTENT_READS_CONFIG = DynamoDBMapperConfig.builder().
+            withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT).
+            build();
+
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    @Qualifier("ratingAnswerQueryFanOut")
+    private AdaptiveFanOut queryFanOut;
+
     @Override
     public RatingAnswer create(RatingAnswer ratingAnswer) throws TechnicalException {
         if (ratingAnswer == null) {
@@ -64,9 +81,14 @@ public class DynamoDBRatingAnswerRepository implements RatingAnswerRepository {
 
     @Override
     public List<RatingAnswer> findByRating(String rating) throws TechnicalException {
+        return queryByRating(rating);
+    }
+
+    private List<RatingAnswer> queryByRating(String rating) {
         final DynamoDBRatingAnswer dynamoDBRatingAnswer = new DynamoDBRatingAnswer();
         dynamoDBRatingAnswer.setRating(rating);
         return mapper.query(DynamoDBRatingAnswer.class, new DynamoDBQueryExpression<DynamoDBRatingAnswer>().
+                withIndexName(RATING_INDEX).
                 withConsistentRead(false).
                 withHashKeyValues(dynamoDBRatingAnswer)).
                 stream().
@@ -74,16 +96,40 @@ public class DynamoDBRatingAnswerRepository implements RatingAnswerRepository {
                 collect(toList());
     }
 
+    /**
+     * Find the answers of several ratings at once, querying the ratings concurrently.
+     *
+     * @return the answers by rating, with an empty list for the ratings without answer
+     */
+    public Map<String, List<RatingAnswer>> findByRatings(Collection<String> ratings) throws TechnicalException {
+        Map<String, List<RatingAnswer>> result = new ConcurrentHashMap<>(ratings.size());
+        ratings.forEach(rating -> result.put(rating, new ArrayList<>()));
+        queryFanOut.forEach(result.keySet(), rating -> result.put(rating, queryByRating(rating)));
+        return result;
+    }
+
     @Override
     public Optional<RatingAnswer> findById(String id) throws TechnicalException {
-        final DynamoDBRatingAnswer dynamoDBRatingAnswer = new DynamoDBRatingAnswer();
-        dynamoDBRatingAnswer.setId(id);
-        return mapper.query(DynamoDBRatingAnswer.class, new DynamoDBQueryExpression<DynamoDBRatingAnswer>().
-                withConsistentRead(false).
-                withHashKeyValues(dynamoDBRatingAnswer)).
+        return Optional.ofNullable(mapper.load(DynamoDBRatingAnswer.class, id, CONSISTENT_READS_CONFIG)).
+                map(this::convert);
+    }
+
+    /**
+     * @return the answers found, in no particular order
+     */
+    public List<RatingAnswer> findByIds(Collection<String> ids) throws TechnicalException {
+        List<DynamoDBRatingAnswer> keys = ids.stream().
+                distinct().
+                map(id -> {
+                    DynamoDBRatingAnswer key = new DynamoDBRatingAnswer();
+                    key.setId(id);
+                    return key;
+                }).
+                collect(toList());
+        return batchLoader.load(DynamoDBRatingAnswer.class, keys).
                 stream().
                 map(this::convert).
-                findFirst();
+                collect(toList());
     }
 
     @Override
@@ -92,18 +138,19 @@ public class DynamoDBRatingAnswerRepository implements RatingAnswerRepository {
             throw new IllegalStateException("Rating to update must have a id");
         }
 
-        if (!findById(ratingAnswer.getId()).isPresent()) {
+        try {
+            mapper.save(
+                    convert(ratingAnswer),
+                    new DynamoDBSaveExpression().withExpectedEntry(
+                            "id",
+                            new ExpectedAttributeValue().
+                                    withValue(new AttributeValue().withS(ratingAnswer.getId())).
+                                    withExists(true)
+                    )
+            );
+        } catch (ConditionalCheckFailedException e) {
             throw new IllegalStateException(String.format("No rating found with id [%s]", ratingAnswer.getId()));
         }
-        mapper.save(
-                convert(ratingAnswer),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(ratingAnswer.getId())).
-                                withExists(true)
-                )
-        );
         return ratingAnswer;
     }
 
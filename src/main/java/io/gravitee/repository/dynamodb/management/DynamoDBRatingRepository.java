@@ -15,16 +15,19 @@
  */
 package io.gravitee.repository.dynamodb.management;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
-import com.amazonaws.services.dynamodbv2.model.Condition;
-import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.*;
+import com.amazonaws.services.dynamodbv2.model.*;
 import io.gravitee.common.data.domain.Page;
+import io.gravitee.repository.dynamodb.common.CursorPage;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.DynamoDBConditionalWriter;
+import io.gravitee.repository.dynamodb.common.DynamoDBIndexManager;
+import io.gravitee.repository.dynamodb.common.DynamoDBStreams;
+import io.gravitee.repository.dynamodb.common.IndexReadSwitch;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBGraviteeSchema;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBRating;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBRatingSummary;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.RatingRepository;
 import io.gravitee.repository.management.api.search.Pageable;
@@ -32,9 +35,11 @@ import io.gravitee.repository.management.model.Rating;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.toList;
@@ -46,37 +51,145 @@ import static java.util.stream.Collectors.toList;
 @Repository
 public class DynamoDBRatingRepository implements RatingRepository {
 
+    static final String USER_INDEX = "RatingApiAndUser";
+    static final String CREATED_AT_INDEX = "RatingApiAndCreatedAt";
+
+    private static final Comparator<DynamoDBRating> NEWEST_FIRST =
+            comparing(DynamoDBRating::getCreatedAt).thenComparing(DynamoDBRating::getId).reversed();
+
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private AmazonDynamoDB dynamo;
+
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    private DynamoDBConditionalWriter conditionalWriter;
+
+    @Autowired
+    private DynamoDBIndexManager indexManager;
+
+    @Autowired
+    private DynamoDBRatingSummaryRepository summaryRepository;
+
+    private IndexReadSwitch indexReadSwitch;
+
+    @PostConstruct
+    void init() {
+        indexReadSwitch = new IndexReadSwitch(indexManager, DynamoDBGraviteeSchema.RATING_TABLENAME, CREATED_AT_INDEX);
+    }
+
+    /**
+     * Create the creation date index on an existing rating table.
+     * DynamoDB backfills it online, reads are switched over once it is active.
+     */
+    public void migrateIndexes(long timeoutMillis) throws TechnicalException {
+        indexManager.createAndWait(DynamoDBGraviteeSchema.RATING_TABLENAME,
+                Arrays.asList(
+                        new AttributeDefinition().withAttributeName("api").withAttributeType(ScalarAttributeType.S),
+                        new AttributeDefinition().withAttributeName("createdAt").withAttributeType(ScalarAttributeType.N)),
+                new GlobalSecondaryIndex().
+                        withIndexName(CREATED_AT_INDEX).
+                        withKeySchema(
+                                new KeySchemaElement().withAttributeName("api").withKeyType(KeyType.HASH),
+                                new KeySchemaElement().withAttributeName("createdAt").withKeyType(KeyType.RANGE)
+                        ).
+                        withProjection(new Projection().withProjectionType(ProjectionType.KEYS_ONLY)).
+                        withProvisionedThroughput(DynamoDBGraviteeSchema.RATING_PRO_THROU),
+                timeoutMillis);
+        indexReadSwitch.activate();
+    }
+
+    /**
+     * Compute the rating summary of every api again.
+     * Apis not seeded yet are otherwise seeded on the first read of their ratings. An api rated while it is
+     * recounted keeps its counters.
+     */
+    public void recountRatings() {
+        DynamoDBStreams.stream(mapper.scan(DynamoDBRating.class, new DynamoDBScanExpression().
+                        withProjectionExpression("id, api"),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG)).
+                map(DynamoDBRating::getApi).
+                filter(Objects::nonNull).
+                distinct().
+                forEach(api -> seed(api, summaryRepository.load(api)));
+    }
+
+    /**
+     * Read the rating summaries of several apis at once, without reading their ratings.
+     *
+     * @return the summaries by api, apis which have not been counted yet are missing
+     */
+    public Map<String, RatingSummary> findSummariesByApis(Collection<String> apis) throws TechnicalException {
+        if (apis == null || apis.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return summaryRepository.findByApis(apis);
+    }
+
     @Override
     public Page<Rating> findByApiPageable(String api, Pageable pageable) throws TechnicalException {
-        final DynamoDBRating dynamoDBRating = new DynamoDBRating();
-        dynamoDBRating.setApi(api);
-        final QueryResultPage<DynamoDBRating> resultPage =
-                mapper.queryPage(DynamoDBRating.class, new DynamoDBQueryExpression<DynamoDBRating>().
-                withConsistentRead(false).
-                withHashKeyValues(dynamoDBRating));
+        final int skip = Math.max(0, (pageable.pageNumber() - 1) * pageable.pageSize());
+        final List<Rating> ratings;
+        if (indexReadSwitch.isActive()) {
+            Map<String, AttributeValue> startKey = null;
+            if (skip > 0) {
+                // only the keys are read to skip the previous pages
+                startKey = queryKeys(api, skip, null).getLastEvaluatedKey();
+            }
+            ratings = skip > 0 && startKey == null ?
+                    Collections.emptyList() :
+                    load(queryKeys(api, pageable.pageSize(), startKey).getResults());
+        } else {
+            ratings = queryAll(api).
+                    stream().
+                    skip(skip).
+                    limit(pageable.pageSize()).
+                    map(this::convert).
+                    collect(toList());
+        }
 
-        final int limit = pageable.pageNumber() * pageable.pageSize();
-        final List<Rating> ratings = resultPage.getResults().
-                stream().
-                sorted(comparing(DynamoDBRating::getCreatedAt).reversed()).
-                skip(limit - pageable.pageSize()).
-                limit(limit).
-                map(this::convert).
-                collect(toList());
+        return new Page<>(ratings, pageable.pageNumber(), ratings.size(), count(api));
+    }
 
-        return new Page<>(ratings, pageable.pageNumber(), ratings.size(), resultPage.getResults().size());
+    /**
+     * Read the ratings of an api, newest first, from the position given by a cursor.
+     * Unlike {@link #findByApiPageable(String, Pageable)}, reading a page does not read the previous ones.
+     *
+     * @param cursor the cursor returned with the previous page, null for the first page
+     */
+    public CursorPage<Rating> findByApi(String api, int pageSize, String cursor) throws TechnicalException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        final DynamoDBRating start = decodeCursor(api, cursor);
+        final List<Rating> ratings;
+        final DynamoDBRating last;
+        if (indexReadSwitch.isActive()) {
+            QueryResultPage<DynamoDBRating> keys = queryKeys(api, pageSize, start == null ? null : startKey(start));
+            ratings = load(keys.getResults());
+            last = keys.getLastEvaluatedKey() == null ? null : keys.getResults().get(keys.getResults().size() - 1);
+        } else {
+            List<DynamoDBRating> remaining = queryAll(api).
+                    stream().
+                    filter(rating -> start == null || NEWEST_FIRST.compare(rating, start) > 0).
+                    collect(toList());
+            List<DynamoDBRating> page = remaining.subList(0, Math.min(pageSize, remaining.size()));
+            ratings = page.stream().map(this::convert).collect(toList());
+            last = remaining.size() > pageSize ? page.get(page.size() - 1) : null;
+        }
+        return new CursorPage<>(ratings, last == null ? null : encodeCursor(last), count(api));
     }
 
     @Override
     public List<Rating> findByApi(String api) throws TechnicalException {
-        final DynamoDBRating dynamoDBRating = new DynamoDBRating();
-        dynamoDBRating.setApi(api);
         return mapper.query(DynamoDBRating.class, new DynamoDBQueryExpression<DynamoDBRating>().
+                withIndexName(USER_INDEX).
                 withConsistentRead(false).
-                withHashKeyValues(dynamoDBRating)).
+                withHashKeyValues(hashKey(api))).
                 stream().
                 map(this::convert).
                 collect(toList());
@@ -88,6 +201,7 @@ public class DynamoDBRatingRepository implements RatingRepository {
         dynamoDBRating.setApi(api);
         dynamoDBRating.setUser(user);
         return mapper.query(DynamoDBRating.class, new DynamoDBQueryExpression<DynamoDBRating>().
+                withIndexName(USER_INDEX).
                 withConsistentRead(false).
                 withHashKeyValues(dynamoDBRating).
                 withRangeKeyCondition("user", new Condition().
@@ -117,6 +231,7 @@ public class DynamoDBRatingRepository implements RatingRepository {
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        summaryRepository.add(rating.getApi(), rating.getRate());
 
         return rating;
     }
@@ -127,18 +242,16 @@ public class DynamoDBRatingRepository implements RatingRepository {
             throw new IllegalStateException("Rating to update must have a id");
         }
 
-        if (!findById(rating.getId()).isPresent()) {
+        DynamoDBRating previous = conditionalWriter.replace(DynamoDBRating.class, convert(rating));
+        if (previous == null) {
             throw new IllegalStateException(String.format("No rating found with id [%s]", rating.getId()));
         }
-        mapper.save(
-                convert(rating),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(rating.getId())).
-                                withExists(true)
-                )
-        );
+        if (!Objects.equals(previous.getApi(), rating.getApi())) {
+            summaryRepository.remove(previous.getApi(), previous.getRate());
+            summaryRepository.add(rating.getApi(), rating.getRate());
+        } else {
+            summaryRepository.change(rating.getApi(), previous.getRate(), rating.getRate());
+        }
         return rating;
     }
 
@@ -147,9 +260,140 @@ public class DynamoDBRatingRepository implements RatingRepository {
         if (id == null) {
             throw new IllegalArgumentException("Trying to delete null");
         }
-        DynamoDBRating rating = new DynamoDBRating();
-        rating.setId(id);
-        mapper.delete(rating);
+        // the counters are decremented with the rating as it was deleted, an update made meanwhile included
+        DynamoDBRating rating;
+        try {
+            rating = mapper.getTableModel(DynamoDBRating.class).unconvert(dynamo.deleteItem(new DeleteItemRequest().
+                    withTableName(DynamoDBGraviteeSchema.RATING_TABLENAME).
+                    withKey(Collections.singletonMap("id", new AttributeValue().withS(id))).
+                    withConditionExpression("attribute_exists(id)").
+                    withReturnValues(ReturnValue.ALL_OLD)).
+                    getAttributes());
+        } catch (ConditionalCheckFailedException e) {
+            // not found or deleted meanwhile, the counters have already been updated
+            return;
+        }
+        summaryRepository.remove(rating.getApi(), rating.getRate());
+    }
+
+    /**
+     * Query the keys of the ratings of an api, newest first, until the limit is reached or there are no more ratings.
+     */
+    private QueryResultPage<DynamoDBRating> queryKeys(String api, int limit, Map<String, AttributeValue> startKey) {
+        List<DynamoDBRating> keys = new ArrayList<>();
+        Map<String, AttributeValue> lastKey = startKey;
+        do {
+            QueryResultPage<DynamoDBRating> page = mapper.queryPage(DynamoDBRating.class, new DynamoDBQueryExpression<DynamoDBRating>().
+                    withIndexName(CREATED_AT_INDEX).
+                    withConsistentRead(false).
+                    withHashKeyValues(hashKey(api)).
+                    withScanIndexForward(false).
+                    withLimit(limit - keys.size()).
+                    withExclusiveStartKey(lastKey));
+            keys.addAll(page.getResults());
+            lastKey = page.getLastEvaluatedKey();
+        } while (lastKey != null && keys.size() < limit);
+
+        QueryResultPage<DynamoDBRating> result = new QueryResultPage<>();
+        result.setResults(keys);
+        result.setLastEvaluatedKey(lastKey);
+        return result;
+    }
+
+    /**
+     * @return the ratings of the api sorted the same way as in the creation date index
+     */
+    private List<DynamoDBRating> queryAll(String api) {
+        return mapper.query(DynamoDBRating.class, new DynamoDBQueryExpression<DynamoDBRating>().
+                withIndexName(USER_INDEX).
+                withConsistentRead(false).
+                withHashKeyValues(hashKey(api))).
+                stream().
+                sorted(NEWEST_FIRST).
+                collect(toList());
+    }
+
+    private List<Rating> load(List<DynamoDBRating> keys) {
+        Map<String, DynamoDBRating> ratings = batchLoader.load(DynamoDBRating.class, keys).
+                stream().
+                collect(Collectors.toMap(DynamoDBRating::getId, Function.identity()));
+        return keys.stream().
+                map(key -> ratings.get(key.getId())).
+                filter(Objects::nonNull).
+                map(this::convert).
+                collect(toList());
+    }
+
+    private long count(String api) {
+        DynamoDBRatingSummary summary = summaryRepository.load(api);
+        if (summary != null && summary.isSeeded()) {
+            return summary.getCount();
+        }
+        // not seeded yet, count the ratings and seed the counters for the next reads
+        return seed(api, summary);
+    }
+
+    /**
+     * @param previous the counters read before the ratings
+     * @return the number of ratings of the api
+     */
+    private long seed(String api, DynamoDBRatingSummary previous) {
+        List<Byte> rates = new ArrayList<>();
+        long lastChangedAt = 0;
+        Iterator<DynamoDBRating> ratings = mapper.query(DynamoDBRating.class, new DynamoDBQueryExpression<DynamoDBRating>().
+                        withIndexName(USER_INDEX).
+                        withConsistentRead(false).
+                        withHashKeyValues(hashKey(api)).
+                        withProjectionExpression("id, rate, createdAt, updatedAt"),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG).
+                iterator();
+        while (ratings.hasNext()) {
+            DynamoDBRating rating = ratings.next();
+            rates.add(rating.getRate());
+            lastChangedAt = Math.max(lastChangedAt, Math.max(rating.getCreatedAt(), rating.getUpdatedAt()));
+        }
+        summaryRepository.seed(api, previous, rates, lastChangedAt);
+        return rates.size();
+    }
+
+    static String encodeCursor(DynamoDBRating rating) {
+        String position = rating.getCreatedAt() + ":" + rating.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the position of the cursor in the ratings of the api, null for the first page
+     * @throws IllegalArgumentException if the cursor is not one returned by {@link #encodeCursor(DynamoDBRating)}
+     */
+    static DynamoDBRating decodeCursor(String api, String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            DynamoDBRating start = new DynamoDBRating();
+            start.setApi(api);
+            start.setCreatedAt(Long.parseLong(position.substring(0, separator)));
+            start.setId(position.substring(separator + 1));
+            return start;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException(String.format("Invalid cursor [%s]", cursor), e);
+        }
+    }
+
+    private Map<String, AttributeValue> startKey(DynamoDBRating start) {
+        Map<String, AttributeValue> startKey = new HashMap<>();
+        startKey.put("id", new AttributeValue().withS(start.getId()));
+        startKey.put("api", new AttributeValue().withS(start.getApi()));
+        startKey.put("createdAt", new AttributeValue().withN(Long.toString(start.getCreatedAt())));
+        return startKey;
+    }
+
+    private DynamoDBRating hashKey(String api) {
+        final DynamoDBRating dynamoDBRating = new DynamoDBRating();
+        dynamoDBRating.setApi(api);
+        return dynamoDBRating;
     }
 
     private Rating convert(final DynamoDBRating dynamoDBRating) {
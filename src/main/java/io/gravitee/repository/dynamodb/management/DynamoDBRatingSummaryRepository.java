@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBGraviteeSchema;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBRatingSummary;
+import io.gravitee.repository.exceptions.TechnicalException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Maintain the rating counters of each api, so that they are not computed from all the ratings on each read.
+ * The counters are updated with ADD, so concurrent writes on the same api do not overwrite each other.
+ * <p>
+ * The counters of an api rated before the summaries existed only hold the later changes. They are ignored until the
+ * api has been seeded with the counters computed from its ratings, see {@link #seed}.
+ *
+ * @author GraviteeSource Team
+ */
+@Repository
+public class DynamoDBRatingSummaryRepository {
+
+    /**
+     * The index the ratings are counted from is eventually consistent, so an api is not seeded while it has just
+     * been rated: the counted ratings could miss a rating already added to the counters.
+     */
+    static final long SEED_DELAY_MILLIS = 10_000;
+
+    private static final DynamoDBMapperConfig CONSISTENT_READS_CONFIG = DynamoDBMapperConfig.builder().
+            withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT).
+            build();
+
+    @Autowired
+    private DynamoDBMapper mapper;
+
+    @Autowired
+    private AmazonDynamoDB dynamo;
+
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    void add(String api, byte rate) {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        deltas.put("count", 1L);
+        deltas.put("sum", (long) rate);
+        deltas.merge(rateAttribute(rate), 1L, Long::sum);
+        update(api, deltas);
+    }
+
+    void remove(String api, byte rate) {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        deltas.put("count", -1L);
+        deltas.put("sum", (long) -rate);
+        deltas.merge(rateAttribute(rate), -1L, Long::sum);
+        update(api, deltas);
+    }
+
+    void change(String api, byte previousRate, byte rate) {
+        if (previousRate == rate) {
+            return;
+        }
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        deltas.put("sum", (long) rate - previousRate);
+        deltas.merge(rateAttribute(previousRate), -1L, Long::sum);
+        deltas.merge(rateAttribute(rate), 1L, Long::sum);
+        update(api, deltas);
+    }
+
+    /**
+     * @return the counters of the api read with a consistent read, null if it has never been rated nor seeded
+     */
+    DynamoDBRatingSummary load(String api) {
+        return mapper.load(DynamoDBRatingSummary.class, api, CONSISTENT_READS_CONFIG);
+    }
+
+    /**
+     * Replace the counters of the api with the ones computed from its ratings, and mark them as seeded.
+     * The ratings must have been read after the previous counters, the counters are not replaced if they have changed
+     * meanwhile, or if they or the ratings have changed too recently for the ratings to be up to date.
+     *
+     * @param previous the counters read with {@link #load(String)} before reading the ratings
+     * @param lastChangedAt the last creation or update date of the ratings
+     * @return true if the counters have been replaced
+     */
+    boolean seed(String api, DynamoDBRatingSummary previous, Collection<Byte> rates, long lastChangedAt) {
+        long now = System.currentTimeMillis();
+        if (now - lastChangedAt < SEED_DELAY_MILLIS ||
+                (previous != null && now - previous.getUpdatedAt() < SEED_DELAY_MILLIS)) {
+            return false;
+        }
+        long sum = 0;
+        long[] countsByRate = new long[RatingSummary.MAX_RATE];
+        for (byte rate : rates) {
+            sum += rate;
+            if (rate >= 1 && rate <= RatingSummary.MAX_RATE) {
+                countsByRate[rate - 1]++;
+            }
+        }
+
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        StringJoiner expression = new StringJoiner(", ", "SET ", "");
+        expression.add(set("count", rates.size(), names, values));
+        expression.add(set("sum", sum, names, values));
+        for (int rate = 1; rate <= RatingSummary.MAX_RATE; rate++) {
+            expression.add(set(rateAttribute(rate), countsByRate[rate - 1], names, values));
+        }
+        expression.add(set("seeded", 1, names, values));
+        expression.add(set("updatedAt", now, names, values));
+
+        names.put("#api", "api");
+        String condition = "attribute_not_exists(#api)";
+        if (previous != null) {
+            names.put("#c", "count");
+            names.put("#s", "sum");
+            names.put("#u", "updatedAt");
+            values.put(":c", new AttributeValue().withN(Long.toString(previous.getCount())));
+            values.put(":s", new AttributeValue().withN(Long.toString(previous.getSum())));
+            condition = "attribute_exists(#api) and #c = :c and #s = :s and ";
+            // DynamoDB rejects the expression values which are not used
+            if (previous.getUpdatedAt() == 0) {
+                condition += "attribute_not_exists(#u)";
+            } else {
+                values.put(":u", new AttributeValue().withN(Long.toString(previous.getUpdatedAt())));
+                condition += "#u = :u";
+            }
+        }
+        try {
+            dynamo.updateItem(new UpdateItemRequest().
+                    withTableName(DynamoDBGraviteeSchema.RATING_SUMMARY_TABLENAME).
+                    withKey(key(api)).
+                    withUpdateExpression(expression.toString()).
+                    withConditionExpression(condition).
+                    withExpressionAttributeNames(names).
+                    withExpressionAttributeValues(values));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            // rated meanwhile, the ratings read may be outdated
+            return false;
+        }
+    }
+
+    /**
+     * @return the summaries of the apis which have been seeded, by api
+     */
+    Map<String, RatingSummary> findByApis(Collection<String> apis) throws TechnicalException {
+        List<DynamoDBRatingSummary> keys = apis.stream().
+                distinct().
+                map(api -> {
+                    DynamoDBRatingSummary key = new DynamoDBRatingSummary();
+                    key.setApi(api);
+                    return key;
+                }).
+                collect(Collectors.toList());
+        return batchLoader.load(DynamoDBRatingSummary.class, keys).
+                stream().
+                filter(DynamoDBRatingSummary::isSeeded).
+                map(this::convert).
+                collect(Collectors.toMap(RatingSummary::getApi, summary -> summary));
+    }
+
+    private void update(String api, Map<String, Long> deltas) {
+        if (api == null) {
+            return;
+        }
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        StringJoiner expression = new StringJoiner(", ", "ADD ", "");
+        deltas.forEach((attribute, delta) -> {
+            if (attribute != null && delta != 0) {
+                String alias = String.valueOf(names.size());
+                names.put("#a" + alias, attribute);
+                values.put(":a" + alias, new AttributeValue().withN(Long.toString(delta)));
+                expression.add("#a" + alias + " :a" + alias);
+            }
+        });
+        if (names.isEmpty()) {
+            return;
+        }
+        String updatedAt = set("updatedAt", System.currentTimeMillis(), names, values);
+        dynamo.updateItem(new UpdateItemRequest().
+                withTableName(DynamoDBGraviteeSchema.RATING_SUMMARY_TABLENAME).
+                withKey(key(api)).
+                withUpdateExpression(expression.toString() + " SET " + updatedAt).
+                withExpressionAttributeNames(names).
+                withExpressionAttributeValues(values));
+    }
+
+    private String set(String attribute, long value, Map<String, String> names, Map<String, AttributeValue> values) {
+        String alias = String.valueOf(names.size());
+        names.put("#a" + alias, attribute);
+        values.put(":a" + alias, new AttributeValue().withN(Long.toString(value)));
+        return "#a" + alias + " = :a" + alias;
+    }
+
+    /**
+     * @return the attribute counting the ratings with this rate, null if the rate is out of range
+     */
+    private String rateAttribute(int rate) {
+        return rate < 1 || rate > RatingSummary.MAX_RATE ? null : "rate" + rate;
+    }
+
+    private RatingSummary convert(DynamoDBRatingSummary summary) {
+        return new RatingSummary(summary.getApi(), summary.getCount(), summary.getSum(), new long[]{
+                summary.getRate1(), summary.getRate2(), summary.getRate3(), summary.getRate4(), summary.getRate5()});
+    }
+
+    private Map<String, AttributeValue> key(String api) {
+        return Collections.singletonMap("api", new AttributeValue().withS(api));
+    }
+}
@@ -19,21 +19,18 @@ import com.amazonaws.services.dynamodbv2.datamodeling.*;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import io.gravitee.repository.dynamodb.common.ReferenceDataCache;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBRole;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.RoleRepository;
 import io.gravitee.repository.management.model.Role;
 import io.gravitee.repository.management.model.RoleScope;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author Nicolas GERAUD (nicolas.geraud at graviteesource.com) 
@@ -42,15 +39,18 @@ import java.util.stream.Collectors;
 @Repository
 public class DynamoDBRoleRepository implements RoleRepository {
 
-    private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBRoleRepository.class);
-
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private DynamoDBPermissionRepository permissionRepository;
+
     @Override
     public Set<Role> findAll() throws TechnicalException {
-        PaginatedScanList<DynamoDBRole> dynamoDBRoles = mapper.scan(DynamoDBRole.class, new DynamoDBScanExpression());
-        return dynamoDBRoles.stream().map(this::convert).collect(Collectors.toSet());
+        return referenceDataCache.findAll(DynamoDBRole.class).stream().map(this::convert).collect(Collectors.toSet());
     }
 
     @Override
@@ -72,6 +72,8 @@ public class DynamoDBRoleRepository implements RoleRepository {
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        permissionRepository.invalidateAll();
+        referenceDataCache.invalidate(DynamoDBRole.class);
         return role;
     }
 
@@ -81,9 +83,6 @@ public class DynamoDBRoleRepository implements RoleRepository {
             throw new IllegalStateException("Role to update must not be null");
         }
 
-        if (!findById(role.getScope(), role.getName()).isPresent()) {
-            throw new IllegalStateException(String.format("No role found with scope [%s] and name [%s]", role.getScope(), role.getName()));
-        }
         String id = convertId(role.getScope(), role.getName());
         try {
             mapper.save(
@@ -95,10 +94,11 @@ public class DynamoDBRoleRepository implements RoleRepository {
                                     withExists(true)
                     )
             );
+            permissionRepository.invalidateAll();
+            referenceDataCache.invalidate(DynamoDBRole.class);
             return role;
         } catch (ConditionalCheckFailedException e) {
-            LOGGER.error(e.getMessage(), e);
-            return null;
+            throw new IllegalStateException(String.format("No role found with scope [%s] and name [%s]", role.getScope(), role.getName()));
         }
     }
 
@@ -111,6 +111,8 @@ public class DynamoDBRoleRepository implements RoleRepository {
         DynamoDBRole role = new DynamoDBRole();
         role.setId(id);
         mapper.delete(role);
+        referenceDataCache.invalidate(DynamoDBRole.class);
+        permissionRepository.invalidateAll();
     }
 
     @Override
@@ -125,6 +127,17 @@ public class DynamoDBRoleRepository implements RoleRepository {
                 collect(Collectors.toSet());
     }
 
+    /**
+     * Read the permissions of a role from its bitmap, or from the set of permissions it was written with before
+     * or that the bitmap cannot hold.
+     */
+    static PermissionBitmap permissions(DynamoDBRole dynamoDBRole) {
+        if (dynamoDBRole.getPermissionBitmap() != null) {
+            return PermissionBitmap.fromByteBuffer(dynamoDBRole.getPermissionBitmap());
+        }
+        return PermissionBitmap.of(dynamoDBRole.getPermissions());
+    }
+
     private String convertId(RoleScope scope, String name) {
         return scope.getId() + ":" + name;
     }
@@ -140,8 +153,11 @@ public class DynamoDBRoleRepository implements RoleRepository {
         role.setDescription(dynamoDBRole.getDescription());
         role.setDefaultRole(dynamoDBRole.isDefaultRole());
         role.setSystem(dynamoDBRole.isSystem());
-        int[] perms = dynamoDBRole.getPermissions().stream().mapToInt(x->x).toArray();
-        role.setPermissions(perms);
+        if (dynamoDBRole.getPermissionBitmap() == null && dynamoDBRole.getPermissions() != null) {
+            role.setPermissions(dynamoDBRole.getPermissions().stream().mapToInt(x->x).toArray());
+        } else {
+            role.setPermissions(permissions(dynamoDBRole).toArray());
+        }
         if (dynamoDBRole.getUpdatedAt() > 0) {
             role.setUpdatedAt(new Date(dynamoDBRole.getUpdatedAt()));
         }
@@ -164,11 +180,14 @@ public class DynamoDBRoleRepository implements RoleRepository {
         dynamoDBRole.setDescription(role.getDescription());
         dynamoDBRole.setDefaultRole(role.isDefaultRole());
         dynamoDBRole.setSystem(role.isSystem());
-        Set<Integer> perms = new HashSet<>(role.getPermissions().length);
-        for (int perm : role.getPermissions()) {
-            perms.add(perm);
+        // the bitmap holds one value per permission mask, the other roles keep their exact values in the set
+        PermissionBitmap bitmap = PermissionBitmap.of(role.getPermissions());
+        int[] permissions = role.getPermissions() == null ? new int[0] : IntStream.of(role.getPermissions()).distinct().sorted().toArray();
+        if (Arrays.equals(bitmap.toArray(), permissions)) {
+            dynamoDBRole.setPermissionBitmap(bitmap.toByteBuffer());
+        } else {
+            dynamoDBRole.setPermissions(IntStream.of(permissions).boxed().collect(Collectors.toSet()));
         }
-        dynamoDBRole.setPermissions(perms);
         if (role.getUpdatedAt() != null) {
             dynamoDBRole.setUpdatedAt(role.getUpdatedAt().getTime());
         }
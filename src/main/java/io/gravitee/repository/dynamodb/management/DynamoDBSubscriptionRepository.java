@@ -15,11 +15,16 @@
  */
 package io.gravitee.repository.dynamodb.management;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.*;
+import io.gravitee.repository.dynamodb.common.DynamoDBIndexManager;
+import io.gravitee.repository.dynamodb.common.DynamoDBStreams;
+import io.gravitee.repository.dynamodb.common.IndexReadSwitch;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBGraviteeSchema;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBSubscription;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.SubscriptionRepository;
@@ -29,11 +34,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
-import java.util.Collections;
-import java.util.Date;
-import java.util.Optional;
-import java.util.Set;
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Nicolas GERAUD (nicolas.geraud at graviteesource.com) 
@@ -44,11 +52,83 @@ public class DynamoDBSubscriptionRepository implements SubscriptionRepository {
 
     private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBSubscriptionRepository.class);
 
+    static final String PLAN_INDEX = "SubscriptionPlan";
+    static final String APPLICATION_INDEX = "SubscriptionApplication";
+    static final String ENDING_INDEX = "SubscriptionEnding";
+
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private DynamoDBIndexManager indexManager;
+
+    @Autowired
+    private AmazonDynamoDB dynamo;
+
+    private IndexReadSwitch indexReadSwitch;
+    private IndexReadSwitch endingIndexReadSwitch;
+
+    @PostConstruct
+    void init() {
+        indexReadSwitch = new IndexReadSwitch(indexManager, DynamoDBGraviteeSchema.SUBSCRIPTION_TABLENAME, PLAN_INDEX, APPLICATION_INDEX);
+        endingIndexReadSwitch = new IndexReadSwitch(indexManager, DynamoDBGraviteeSchema.SUBSCRIPTION_TABLENAME, ENDING_INDEX);
+    }
+
+    /**
+     * Create the plan, application and ending indexes on an existing subscription table.
+     * DynamoDB backfills them online, reads are switched over once they are active.
+     */
+    public void migrateIndexes(long timeoutMillis) throws TechnicalException {
+        indexManager.createAndWait(DynamoDBGraviteeSchema.SUBSCRIPTION_TABLENAME,
+                Arrays.asList(attribute("plan", ScalarAttributeType.S), attribute("status", ScalarAttributeType.S)),
+                index(PLAN_INDEX, "plan", "status"), timeoutMillis);
+        indexManager.createAndWait(DynamoDBGraviteeSchema.SUBSCRIPTION_TABLENAME,
+                Arrays.asList(attribute("application", ScalarAttributeType.S), attribute("status", ScalarAttributeType.S)),
+                index(APPLICATION_INDEX, "application", "status"), timeoutMillis);
+        indexReadSwitch.activate();
+
+        reindexEndings();
+        indexManager.createAndWait(DynamoDBGraviteeSchema.SUBSCRIPTION_TABLENAME,
+                Arrays.asList(attribute("endingDay", ScalarAttributeType.S), attribute("endingAt", ScalarAttributeType.N)),
+                index(ENDING_INDEX, "endingDay", "endingAt"), timeoutMillis);
+        endingIndexReadSwitch.activate();
+    }
+
+    /**
+     * Set the ending day of the accepted subscriptions written before it existed.
+     */
+    private void reindexEndings() {
+        Map<String, AttributeValue> eav = new HashMap<>();
+        eav.put(":accepted", new AttributeValue().withS(Subscription.Status.ACCEPTED.name()));
+        eav.put(":zero", new AttributeValue().withN("0"));
+        DynamoDBStreams.stream(mapper.scan(DynamoDBSubscription.class, new DynamoDBScanExpression().
+                        withFilterExpression("#s = :accepted and endingAt > :zero and attribute_not_exists(endingDay)").
+                        withExpressionAttributeNames(Collections.singletonMap("#s", "status")).
+                        withExpressionAttributeValues(eav),
+                DynamoDBStreams.ITERATION_ONLY_CONFIG)).
+                forEach(dynamoDBSubscription -> {
+                    Map<String, AttributeValue> values = new HashMap<>();
+                    values.put(":accepted", new AttributeValue().withS(Subscription.Status.ACCEPTED.name()));
+                    values.put(":day", new AttributeValue().withS(endingDay(dynamoDBSubscription.getEndingAt())));
+                    try {
+                        dynamo.updateItem(new UpdateItemRequest().
+                                withTableName(DynamoDBGraviteeSchema.SUBSCRIPTION_TABLENAME).
+                                withKey(Collections.singletonMap("id", new AttributeValue().withS(dynamoDBSubscription.getId()))).
+                                withUpdateExpression("SET endingDay = :day").
+                                withConditionExpression("#s = :accepted").
+                                withExpressionAttributeNames(Collections.singletonMap("#s", "status")).
+                                withExpressionAttributeValues(values));
+                    } catch (ConditionalCheckFailedException e) {
+                        LOGGER.debug("Subscription {} is no longer accepted", dynamoDBSubscription.getId());
+                    }
+                });
+    }
+
     @Override
     public Set<Subscription> findByPlan(String planId) throws TechnicalException {
+        if (indexReadSwitch.isActive()) {
+            return findByPlanAndStatus(planId);
+        }
         return mapper.scan(
                 DynamoDBSubscription.class,
                 new DynamoDBScanExpression().
@@ -62,6 +142,9 @@ public class DynamoDBSubscriptionRepository implements SubscriptionRepository {
 
     @Override
     public Set<Subscription> findByApplication(String applicationId) throws TechnicalException {
+        if (indexReadSwitch.isActive()) {
+            return findByApplicationAndStatus(applicationId);
+        }
         return mapper.scan(
                 DynamoDBSubscription.class,
                 new DynamoDBScanExpression().
@@ -72,6 +155,118 @@ public class DynamoDBSubscriptionRepository implements SubscriptionRepository {
                 collect(Collectors.toSet());
     }
 
+    /**
+     * @param statuses the statuses to look for, all the subscriptions of the plan if empty
+     */
+    public Set<Subscription> findByPlanAndStatus(String planId, Subscription.Status... statuses) {
+        DynamoDBSubscription hashKey = new DynamoDBSubscription();
+        hashKey.setPlan(planId);
+        return query(PLAN_INDEX, hashKey, statuses);
+    }
+
+    /**
+     * @param statuses the statuses to look for, all the subscriptions of the application if empty
+     */
+    public Set<Subscription> findByApplicationAndStatus(String applicationId, Subscription.Status... statuses) {
+        DynamoDBSubscription hashKey = new DynamoDBSubscription();
+        hashKey.setApplication(applicationId);
+        return query(APPLICATION_INDEX, hashKey, statuses);
+    }
+
+    private Set<Subscription> query(String indexName, DynamoDBSubscription hashKey, Subscription.Status... statuses) {
+        if (statuses == null || statuses.length == 0) {
+            return mapper.query(DynamoDBSubscription.class, new DynamoDBQueryExpression<DynamoDBSubscription>().
+                    withIndexName(indexName).
+                    withConsistentRead(false).
+                    withHashKeyValues(hashKey)).
+                    stream().
+                    map(this::convert).
+                    collect(Collectors.toSet());
+        }
+
+        Set<Subscription> result = new HashSet<>();
+        for (Subscription.Status status : statuses) {
+            result.addAll(mapper.query(DynamoDBSubscription.class, new DynamoDBQueryExpression<DynamoDBSubscription>().
+                    withIndexName(indexName).
+                    withConsistentRead(false).
+                    withHashKeyValues(hashKey).
+                    withRangeKeyCondition("status", new Condition().
+                            withComparisonOperator(ComparisonOperator.EQ).
+                            withAttributeValueList(new AttributeValue().withS(status.name())))).
+                    stream().
+                    map(this::convert).
+                    collect(Collectors.toSet()));
+        }
+        return result;
+    }
+
+    /**
+     * Stream the accepted subscriptions ending between the two dates, both included.
+     * Pages of <code>pageSize</code> items are read from the ending index one day after the other, only when consumed.
+     */
+    public Stream<Subscription> findAcceptedEndingBetween(Date from, Date to, int pageSize) {
+        if (!endingIndexReadSwitch.isActive()) {
+            Map<String, AttributeValue> eav = new HashMap<>();
+            eav.put(":accepted", new AttributeValue().withS(Subscription.Status.ACCEPTED.name()));
+            eav.put(":from", new AttributeValue().withN(Long.toString(from.getTime())));
+            eav.put(":to", new AttributeValue().withN(Long.toString(to.getTime())));
+            return DynamoDBStreams.stream(mapper.scan(DynamoDBSubscription.class, new DynamoDBScanExpression().
+                            withFilterExpression("#s = :accepted and endingAt between :from and :to").
+                            withExpressionAttributeNames(Collections.singletonMap("#s", "status")).
+                            withExpressionAttributeValues(eav).
+                            withLimit(pageSize),
+                    DynamoDBStreams.ITERATION_ONLY_CONFIG)).
+                    map(this::convert);
+        }
+
+        if (to.before(from)) {
+            return Stream.empty();
+        }
+        LocalDate firstDay = day(from.getTime());
+        LocalDate lastDay = day(to.getTime());
+        return Stream.iterate(firstDay, day -> day.plusDays(1)).
+                limit(ChronoUnit.DAYS.between(firstDay, lastDay) + 1).
+                flatMap(day -> {
+                    DynamoDBSubscription hashKey = new DynamoDBSubscription();
+                    hashKey.setEndingDay(day.toString());
+                    return DynamoDBStreams.stream(mapper.query(DynamoDBSubscription.class, new DynamoDBQueryExpression<DynamoDBSubscription>().
+                                    withIndexName(ENDING_INDEX).
+                                    withConsistentRead(false).
+                                    withHashKeyValues(hashKey).
+                                    withRangeKeyCondition("endingAt", new Condition().
+                                            withComparisonOperator(ComparisonOperator.BETWEEN).
+                                            withAttributeValueList(
+                                                    new AttributeValue().withN(Long.toString(from.getTime())),
+                                                    new AttributeValue().withN(Long.toString(to.getTime())))).
+                                    withLimit(pageSize),
+                            DynamoDBStreams.ITERATION_ONLY_CONFIG));
+                }).
+                map(this::convert);
+    }
+
+    private static LocalDate day(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private static String endingDay(long endingAt) {
+        return day(endingAt).toString();
+    }
+
+    private AttributeDefinition attribute(String name, ScalarAttributeType type) {
+        return new AttributeDefinition().withAttributeName(name).withAttributeType(type);
+    }
+
+    private GlobalSecondaryIndex index(String indexName, String hashKey, String rangeKey) {
+        return new GlobalSecondaryIndex().
+                withIndexName(indexName).
+                withKeySchema(
+                        new KeySchemaElement().withAttributeName(hashKey).withKeyType(KeyType.HASH),
+                        new KeySchemaElement().withAttributeName(rangeKey).withKeyType(KeyType.RANGE)
+                ).
+                withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.SUBSCRIPTION_PRO_THROU);
+    }
+
     @Override
     public Optional<Subscription> findById(String id) throws TechnicalException {
         DynamoDBSubscription load = mapper.load(DynamoDBSubscription.class, id);
@@ -99,18 +294,19 @@ public class DynamoDBSubscriptionRepository implements SubscriptionRepository {
             throw new IllegalStateException("Subscription to update must have an id");
         }
 
-        if (!findById(subscription.getId()).isPresent()) {
+        try {
+            mapper.save(
+                    convert(subscription),
+                    new DynamoDBSaveExpression().withExpectedEntry(
+                            "id",
+                            new ExpectedAttributeValue().
+                                    withValue(new AttributeValue().withS(subscription.getId())).
+                                    withExists(true)
+                    )
+            );
+        } catch (ConditionalCheckFailedException e) {
             throw new IllegalStateException(String.format("No subscription found with id [%s]", subscription.getId()));
         }
-        mapper.save(
-                convert(subscription),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(subscription.getId())).
-                                withExists(true)
-                )
-        );
         return subscription;
     }
 
@@ -176,6 +372,9 @@ public class DynamoDBSubscriptionRepository implements SubscriptionRepository {
         }
         if (subscription.getEndingAt() != null) {
             dynamoDBSubscription.setEndingAt(subscription.getEndingAt().getTime());
+            if (subscription.getStatus() == Subscription.Status.ACCEPTED) {
+                dynamoDBSubscription.setEndingDay(endingDay(subscription.getEndingAt().getTime()));
+            }
         }
         dynamoDBSubscription.setCreatedAt(subscription.getCreatedAt().getTime());
         dynamoDBSubscription.setUpdatedAt(subscription.getUpdatedAt().getTime());
@@ -17,10 +17,10 @@ package io.gravitee.repository.dynamodb.management;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedScanList;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import io.gravitee.repository.dynamodb.common.ReferenceDataCache;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBTag;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.TagRepository;
@@ -46,10 +46,12 @@ public class DynamoDBTagRepository implements TagRepository {
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     @Override
     public Set<Tag> findAll() throws TechnicalException {
-        PaginatedScanList<DynamoDBTag> dynamoDBTags = mapper.scan(DynamoDBTag.class, new DynamoDBScanExpression());
-        return dynamoDBTags.stream().map(this::convert).collect(Collectors.toSet());
+        return referenceDataCache.findAll(DynamoDBTag.class).stream().map(this::convert).collect(Collectors.toSet());
     }
 
     @Override
@@ -70,6 +72,7 @@ public class DynamoDBTagRepository implements TagRepository {
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        referenceDataCache.invalidate(DynamoDBTag.class);
         return tag;
     }
 
@@ -79,18 +82,20 @@ public class DynamoDBTagRepository implements TagRepository {
             throw new IllegalStateException("Tag to update must have a name");
         }
 
-        if (!findById(tag.getId()).isPresent()) {
+        try {
+            mapper.save(
+                    convert(tag),
+                    new DynamoDBSaveExpression().withExpectedEntry(
+                            "id",
+                            new ExpectedAttributeValue().
+                                    withValue(new AttributeValue().withS(tag.getId())).
+                                    withExists(true)
+                    )
+            );
+        } catch (ConditionalCheckFailedException e) {
             throw new IllegalStateException(String.format("No tag found with name [%s]", tag.getId()));
         }
-        mapper.save(
-                convert(tag),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(tag.getId())).
-                                withExists(true)
-                )
-        );
+        referenceDataCache.invalidate(DynamoDBTag.class);
         return tag;
     }
 
@@ -102,6 +107,7 @@ public class DynamoDBTagRepository implements TagRepository {
         DynamoDBTag tag = new DynamoDBTag();
         tag.setId(id);
         mapper.delete(tag);
+        referenceDataCache.invalidate(DynamoDBTag.class);
     }
 
     private Tag convert(final DynamoDBTag dynamoDBTag) {
@@ -17,10 +17,10 @@ package io.gravitee.repository.dynamodb.management;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedScanList;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import io.gravitee.repository.dynamodb.common.ReferenceDataCache;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBTenant;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.TenantRepository;
@@ -46,10 +46,12 @@ public class DynamoDBTenantRepository implements TenantRepository {
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     @Override
     public Set<Tenant> findAll() throws TechnicalException {
-        PaginatedScanList<DynamoDBTenant> dynamoDBTenants = mapper.scan(DynamoDBTenant.class, new DynamoDBScanExpression());
-        return dynamoDBTenants.stream().map(this::convert).collect(Collectors.toSet());
+        return referenceDataCache.findAll(DynamoDBTenant.class).stream().map(this::convert).collect(Collectors.toSet());
     }
 
     @Override
@@ -70,6 +72,7 @@ public class DynamoDBTenantRepository implements TenantRepository {
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        referenceDataCache.invalidate(DynamoDBTenant.class);
         return tenant;
     }
 
@@ -79,18 +82,20 @@ public class DynamoDBTenantRepository implements TenantRepository {
             throw new IllegalStateException("Tenant to update must have a name");
         }
 
-        if (!findById(tenant.getId()).isPresent()) {
+        try {
+            mapper.save(
+                    convert(tenant),
+                    new DynamoDBSaveExpression().withExpectedEntry(
+                            "id",
+                            new ExpectedAttributeValue().
+                                    withValue(new AttributeValue().withS(tenant.getId())).
+                                    withExists(true)
+                    )
+            );
+        } catch (ConditionalCheckFailedException e) {
             throw new IllegalStateException(String.format("No tenant found with name [%s]", tenant.getId()));
         }
-        mapper.save(
-                convert(tenant),
-                new DynamoDBSaveExpression().withExpectedEntry(
-                        "id",
-                        new ExpectedAttributeValue().
-                                withValue(new AttributeValue().withS(tenant.getId())).
-                                withExists(true)
-                )
-        );
+        referenceDataCache.invalidate(DynamoDBTenant.class);
         return tenant;
     }
 
@@ -102,6 +107,7 @@ public class DynamoDBTenantRepository implements TenantRepository {
         DynamoDBTenant tenant = new DynamoDBTenant();
         tenant.setId(id);
         mapper.delete(tenant);
+        referenceDataCache.invalidate(DynamoDBTenant.class);
     }
 
     private Tenant convert(final DynamoDBTenant dynamoDBTenant) {
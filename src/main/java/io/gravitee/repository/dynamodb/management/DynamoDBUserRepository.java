@@ -16,23 +16,27 @@
 package io.gravitee.repository.dynamodb.management;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedScanList;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.DynamoDBLoadCoalescer;
+import io.gravitee.repository.dynamodb.common.DynamoDBScanner;
+import io.gravitee.repository.dynamodb.common.DynamoDBTimestampWriteBehind;
+import io.gravitee.repository.dynamodb.common.ExpiringCache;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBUser;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.UserRepository;
 import io.gravitee.repository.management.model.User;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Nicolas GERAUD (nicolas.geraud at graviteesource.com) 
@@ -41,11 +45,26 @@ import java.util.stream.Collectors;
 @Repository
 public class DynamoDBUserRepository implements UserRepository {
 
-    private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBUserRepository.class);
-
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private DynamoDBBatchLoader batchLoader;
+
+    @Autowired
+    private DynamoDBScanner scanner;
+
+    @Autowired
+    private DynamoDBLoadCoalescer loadCoalescer;
+
+    @Autowired
+    @Qualifier("userLastConnectionWriteBehind")
+    private DynamoDBTimestampWriteBehind lastConnections;
+
+    @Autowired
+    @Qualifier("userStateCache")
+    private ExpiringCache<String, DynamoDBUser> stateCache;
+
     @Override
     public User create(User user) throws TechnicalException {
         if (user == null) {
@@ -67,12 +86,21 @@ public class DynamoDBUserRepository implements UserRepository {
             throw new IllegalStateException("User to update must have a username");
         }
 
-        if (!findByUsername(user.getUsername()).isPresent()) {
-            throw new IllegalStateException(String.format("No user found with username [%s]", user.getUsername()));
+        DynamoDBUser dynamoDBUser = convert(user);
+        long generation = stateCache.generation();
+        if (lastConnections.isEnabled()) {
+            // a login only changes the last connection date, it is written later with the other logins
+            DynamoDBUser previous = stateCache.get(user.getUsername());
+            if (previous != null && isLastConnectionUpdate(previous, dynamoDBUser)) {
+                lastConnections.record(user.getUsername(), dynamoDBUser.getLastConnectionAt());
+                return user;
+            }
+            dynamoDBUser.setLastConnectionAt(Math.max(dynamoDBUser.getLastConnectionAt(), lastConnections.pending(user.getUsername())));
         }
+
         try {
             mapper.save(
-                    convert(user),
+                    dynamoDBUser,
                     new DynamoDBSaveExpression().withExpectedEntry(
                             "username",
                             new ExpectedAttributeValue().
@@ -80,17 +108,30 @@ public class DynamoDBUserRepository implements UserRepository {
                                     withExists(true)
                     )
             );
+            stateCache.put(user.getUsername(), dynamoDBUser, generation);
             return user;
         } catch (ConditionalCheckFailedException e) {
-            LOGGER.error(e.getMessage(), e);
-            return null;
+            stateCache.invalidate(user.getUsername());
+            throw new IllegalStateException(String.format("No user found with username [%s]", user.getUsername()));
         }
     }
 
     @Override
     public Optional<User> findByUsername(String username) throws TechnicalException {
-        DynamoDBUser load = mapper.load(DynamoDBUser.class, username);
-        return Optional.ofNullable(convert(load));
+        DynamoDBUser key = new DynamoDBUser();
+        key.setUsername(username);
+        long generation = stateCache.generation();
+        DynamoDBUser load = loadCoalescer.load(DynamoDBUser.class, key);
+        if (load == null) {
+            return Optional.empty();
+        }
+        stateCache.put(username, load, generation);
+        User user = convert(load);
+        long lastConnectionAt = lastConnections.pending(username);
+        if (lastConnectionAt > load.getLastConnectionAt()) {
+            user.setLastConnectionAt(new Date(lastConnectionAt));
+        }
+        return Optional.of(user);
     }
 
     @Override
@@ -99,25 +140,38 @@ public class DynamoDBUserRepository implements UserRepository {
             return Collections.emptySet();
         }
 
-        Map<String, List<Object>> result = mapper.batchLoad(usernames.stream().map(u -> {
+        return batchLoader.load(DynamoDBUser.class, usernames.stream().map(u -> {
             DynamoDBUser du = new DynamoDBUser();
             du.setUsername(u);
             return du;
-        }).collect(Collectors.toSet()));
-
-        if (result != null && !result.isEmpty()) {
-            List<Object> users = result.entrySet().iterator().next().getValue();
-            return users.stream().map(o -> convert((DynamoDBUser)o)).collect(Collectors.toSet());
-        }
-        return Collections.emptySet();
+        }).collect(Collectors.toList())).
+                stream().
+                map(this::convert).
+                collect(Collectors.toSet());
     }
 
     @Override
     public Set<User> findAll() throws TechnicalException {
-        PaginatedScanList<DynamoDBUser> dynamoDBUsers = mapper.scan(DynamoDBUser.class, new DynamoDBScanExpression());
-        return dynamoDBUsers.stream().
-                map(this::convert).
-                collect(Collectors.toSet());
+        return streamAll().collect(Collectors.toSet());
+    }
+
+    /**
+     * Same as {@link #findAll()}, reading the users one page at a time while the stream is consumed.
+     */
+    public Stream<User> streamAll() {
+        return scanner.scan(DynamoDBUser.class).map(this::convert);
+    }
+
+    private boolean isLastConnectionUpdate(DynamoDBUser previous, DynamoDBUser user) {
+        if (user.getLastConnectionAt() <= previous.getLastConnectionAt()) {
+            return false;
+        }
+        DynamoDBMapperTableModel<DynamoDBUser> tableModel = mapper.getTableModel(DynamoDBUser.class);
+        Map<String, AttributeValue> previousAttributes = new HashMap<>(tableModel.convert(previous));
+        Map<String, AttributeValue> attributes = new HashMap<>(tableModel.convert(user));
+        previousAttributes.remove("lastConnectionAt");
+        attributes.remove("lastConnectionAt");
+        return previousAttributes.equals(attributes);
     }
 
     private User convert(DynamoDBUser dynamoDBUser) {
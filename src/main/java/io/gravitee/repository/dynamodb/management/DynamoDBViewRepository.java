@@ -17,17 +17,14 @@ package io.gravitee.repository.dynamodb.management;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedScanList;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import io.gravitee.repository.dynamodb.common.ReferenceDataCache;
 import io.gravitee.repository.dynamodb.management.model.DynamoDBView;
 import io.gravitee.repository.exceptions.TechnicalException;
 import io.gravitee.repository.management.api.ViewRepository;
 import io.gravitee.repository.management.model.View;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -43,15 +40,15 @@ import java.util.stream.Collectors;
 @Repository
 public class DynamoDBViewRepository implements ViewRepository {
 
-    private final Logger LOGGER = LoggerFactory.getLogger(DynamoDBViewRepository.class);
-
     @Autowired
     private DynamoDBMapper mapper;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     @Override
     public Set<View> findAll() throws TechnicalException {
-        PaginatedScanList<DynamoDBView> dynamoDBViews = mapper.scan(DynamoDBView.class, new DynamoDBScanExpression());
-        return dynamoDBViews.stream().map(this::convert).collect(Collectors.toSet());
+        return referenceDataCache.findAll(DynamoDBView.class).stream().map(this::convert).collect(Collectors.toSet());
     }
 
     @Override
@@ -72,6 +69,7 @@ public class DynamoDBViewRepository implements ViewRepository {
                         new ExpectedAttributeValue().withExists(false)
                 )
         );
+        referenceDataCache.invalidate(DynamoDBView.class);
         return view;
     }
 
@@ -81,9 +79,6 @@ public class DynamoDBViewRepository implements ViewRepository {
             throw new IllegalStateException("View to update must have a name");
         }
 
-        if (!findById(view.getId()).isPresent()) {
-            throw new IllegalStateException(String.format("No view found with name [%s]", view.getId()));
-        }
         try {
             mapper.save(
                     convert(view),
@@ -94,10 +89,10 @@ public class DynamoDBViewRepository implements ViewRepository {
                                     withExists(true)
                     )
             );
+            referenceDataCache.invalidate(DynamoDBView.class);
             return view;
         } catch (ConditionalCheckFailedException e) {
-            LOGGER.error(e.getMessage(), e);
-            return null;
+            throw new IllegalStateException(String.format("No view found with name [%s]", view.getId()));
         }
     }
 
@@ -109,6 +104,7 @@ public class DynamoDBViewRepository implements ViewRepository {
         DynamoDBView view = new DynamoDBView();
         view.setId(id);
         mapper.delete(view);
+        referenceDataCache.invalidate(DynamoDBView.class);
     }
 
     private View convert(final DynamoDBView dynamoDBView) {
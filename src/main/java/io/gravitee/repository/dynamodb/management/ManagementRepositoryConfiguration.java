@@ -24,6 +24,19 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.document.DynamoDB;
 import io.gravitee.repository.Scope;
 import io.gravitee.repository.dynamodb.common.AbstractRepositoryConfiguration;
+import io.gravitee.repository.dynamodb.common.AdaptiveFanOut;
+import io.gravitee.repository.dynamodb.common.DynamoDBBatchLoader;
+import io.gravitee.repository.dynamodb.common.DynamoDBConditionalWriter;
+import io.gravitee.repository.dynamodb.common.DynamoDBIndexManager;
+import io.gravitee.repository.dynamodb.common.DynamoDBItemWeigher;
+import io.gravitee.repository.dynamodb.common.DynamoDBLoadCoalescer;
+import io.gravitee.repository.dynamodb.common.DynamoDBScanner;
+import io.gravitee.repository.dynamodb.common.DynamoDBTimestampWriteBehind;
+import io.gravitee.repository.dynamodb.common.ExpiringCache;
+import io.gravitee.repository.dynamodb.common.IndexBackfills;
+import io.gravitee.repository.dynamodb.common.ReferenceDataCache;
+import io.gravitee.repository.dynamodb.common.bulk.CapacityBudget;
+import io.gravitee.repository.dynamodb.management.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +45,10 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author Nicolas GERAUD (nicolas.geraud at graviteesource.com)
@@ -98,6 +115,186 @@ public class ManagementRepositoryConfiguration extends AbstractRepositoryConfigu
         return new DynamoDB(amazonDynamoDB());
     }
 
+    /**
+     * Thread pool used to run independent DynamoDB requests in parallel.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService dynamoDBExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gio-dynamodb-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(
+                readPropertyValue(propertyPrefix + "executor.threads", Integer.class, 16),
+                threadFactory);
+    }
+
+    @Bean
+    public DynamoDBBatchLoader dynamoDBBatchLoader() {
+        return new DynamoDBBatchLoader(
+                dynamoDBMapper(),
+                amazonDynamoDB(),
+                dynamoDBExecutor(),
+                readPropertyValue(propertyPrefix + "batchGet.maxAttempts", Integer.class, 8),
+                readPropertyValue(propertyPrefix + "batchGet.backoff", Long.class, 50L));
+    }
+
+    @Bean
+    public DynamoDBScanner dynamoDBScanner() {
+        return new DynamoDBScanner(
+                dynamoDBMapper(),
+                readPropertyValue(propertyPrefix + "scan.pageSize", Integer.class, 0));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public IndexBackfills indexBackfills() {
+        return new IndexBackfills(
+                amazonDynamoDB(),
+                DynamoDBGraviteeSchema.INDEX_STATUS_TABLENAME,
+                readPropertyValue(propertyPrefix + "indexes.backfill.enabled", Boolean.class, true));
+    }
+
+    @Bean
+    public DynamoDBConditionalWriter dynamoDBConditionalWriter() {
+        return new DynamoDBConditionalWriter(dynamoDBMapper(), amazonDynamoDB());
+    }
+
+    @Bean
+    public DynamoDBLoadCoalescer dynamoDBLoadCoalescer() {
+        return new DynamoDBLoadCoalescer(
+                dynamoDBMapper(),
+                dynamoDBBatchLoader(),
+                readPropertyValue(propertyPrefix + "coalescing.enabled", Boolean.class, false),
+                readPropertyValue(propertyPrefix + "coalescing.windowMicros", Long.class, 1000L),
+                readPropertyValue(propertyPrefix + "coalescing.maxBatchSize", Integer.class, 100));
+    }
+
+    @Bean
+    public DynamoDBIndexManager dynamoDBIndexManager() {
+        return new DynamoDBIndexManager(amazonDynamoDB());
+    }
+
+    @Bean
+    public CapacityBudget apiKeyBulkCapacityBudget() {
+        return new CapacityBudget(
+                readPropertyValue(propertyPrefix + "apikey.bulk.concurrency", Integer.class, 8),
+                readPropertyValue(propertyPrefix + "apikey.bulk.writeCapacityUnits", Integer.class, 0));
+    }
+
+    @Bean
+    public AdaptiveFanOut apiSearchQueryFanOut() {
+        return new AdaptiveFanOut(
+                dynamoDBExecutor(),
+                readPropertyValue(propertyPrefix + "apiSearch.query.concurrency", Integer.class, 4),
+                readPropertyValue(propertyPrefix + "apiSearch.query.maxAttempts", Integer.class, 3));
+    }
+
+    @Bean
+    public AdaptiveFanOut applicationNameQueryFanOut() {
+        return new AdaptiveFanOut(
+                dynamoDBExecutor(),
+                readPropertyValue(propertyPrefix + "applicationName.query.concurrency", Integer.class, 4),
+                readPropertyValue(propertyPrefix + "applicationName.query.maxAttempts", Integer.class, 3));
+    }
+
+    @Bean
+    public AdaptiveFanOut membershipQueryFanOut() {
+        return new AdaptiveFanOut(
+                dynamoDBExecutor(),
+                readPropertyValue(propertyPrefix + "membership.query.concurrency", Integer.class, 8),
+                readPropertyValue(propertyPrefix + "membership.query.maxAttempts", Integer.class, 3));
+    }
+
+    @Bean
+    public AdaptiveFanOut metadataQueryFanOut() {
+        return new AdaptiveFanOut(
+                dynamoDBExecutor(),
+                readPropertyValue(propertyPrefix + "metadata.query.concurrency", Integer.class, 8),
+                readPropertyValue(propertyPrefix + "metadata.query.maxAttempts", Integer.class, 3));
+    }
+
+    @Bean
+    public AdaptiveFanOut ratingAnswerQueryFanOut() {
+        return new AdaptiveFanOut(
+                dynamoDBExecutor(),
+                readPropertyValue(propertyPrefix + "ratingAnswer.query.concurrency", Integer.class, 8),
+                readPropertyValue(propertyPrefix + "ratingAnswer.query.maxAttempts", Integer.class, 3));
+    }
+
+    @Bean
+    public ExpiringCache<String, UserPermissions> permissionSnapshotCache() {
+        return new ExpiringCache<>(
+                readPropertyValue(propertyPrefix + "permission.cache.ttl", Long.class, 60000L),
+                readPropertyValue(propertyPrefix + "permission.cache.maxSize", Integer.class, 10000));
+    }
+
+    @Bean
+    public ExpiringCache<String, PermissionBitmap> rolePermissionCache() {
+        return new ExpiringCache<>(
+                readPropertyValue(propertyPrefix + "permission.cache.ttl", Long.class, 60000L),
+                readPropertyValue(propertyPrefix + "permission.cache.maxRoles", Integer.class, 1000));
+    }
+
+    @Bean
+    public ExpiringCache<String, DynamoDBApi> apiStateCache() {
+        return new ExpiringCache<>(
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.ttl", Long.class, 60000L),
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.maxSize", Integer.class, 200),
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.maxBytes", Long.class, 16777216L),
+                new DynamoDBItemWeigher<>(dynamoDBMapper(), DynamoDBApi.class));
+    }
+
+    @Bean
+    public ExpiringCache<String, DynamoDBPlan> planStateCache() {
+        return new ExpiringCache<>(
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.ttl", Long.class, 60000L),
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.maxSize", Integer.class, 200),
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.maxBytes", Long.class, 16777216L),
+                new DynamoDBItemWeigher<>(dynamoDBMapper(), DynamoDBPlan.class));
+    }
+
+    @Bean
+    public ExpiringCache<String, DynamoDBPage> pageStateCache() {
+        return new ExpiringCache<>(
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.ttl", Long.class, 60000L),
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.maxSize", Integer.class, 200),
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.maxBytes", Long.class, 16777216L),
+                new DynamoDBItemWeigher<>(dynamoDBMapper(), DynamoDBPage.class));
+    }
+
+    @Bean
+    public ExpiringCache<String, DynamoDBUser> userStateCache() {
+        return new ExpiringCache<>(
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.ttl", Long.class, 60000L),
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.maxSize", Integer.class, 200),
+                readPropertyValue(propertyPrefix + "partialUpdate.cache.maxBytes", Long.class, 16777216L),
+                new DynamoDBItemWeigher<>(dynamoDBMapper(), DynamoDBUser.class));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public DynamoDBTimestampWriteBehind userLastConnectionWriteBehind() {
+        return new DynamoDBTimestampWriteBehind(
+                dynamoDBMapper(),
+                amazonDynamoDB(),
+                new AdaptiveFanOut(
+                        dynamoDBExecutor(),
+                        readPropertyValue(propertyPrefix + "user.lastConnection.concurrency", Integer.class, 8),
+                        readPropertyValue(propertyPrefix + "user.lastConnection.maxAttempts", Integer.class, 3)),
+                DynamoDBUser.class,
+                "lastConnectionAt",
+                readPropertyValue(propertyPrefix + "user.lastConnection.flushInterval", Long.class, 0L));
+    }
+
+    @Bean
+    public ReferenceDataCache referenceDataCache() {
+        ReferenceDataCache cache = new ReferenceDataCache(
+                dynamoDBMapper(),
+                amazonDynamoDB(),
+                DynamoDBGraviteeSchema.REFERENCE_DATA_VERSION_TABLENAME,
+                readPropertyValue(propertyPrefix + "referenceData.cache.checkInterval", Long.class, 5000L));
+        cache.preload(dynamoDBExecutor(),
+                DynamoDBTag.class, DynamoDBTenant.class, DynamoDBView.class, DynamoDBRole.class, DynamoDBGroup.class);
+        return cache;
+    }
+
     private String readPropertyValue(String propertyName) {
         return readPropertyValue(propertyName, String.class, null);
     }
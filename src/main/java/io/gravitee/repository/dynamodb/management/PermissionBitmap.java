@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable set of permissions stored as a bitmap of 64 bits words.
+ * A role permission is a permission mask, a multiple of 100, plus the bits of the granted actions: create (8),
+ * read (4), update (2) and delete (1). Each mask owns 4 consecutive bits, one per action, from bit {@code mask / 100 * 4},
+ * so a role fits in a few words and a check is a single bit test.
+ * It is stored as a binary attribute made of the words in big-endian order, trailing empty words omitted.
+ *
+ * @author GraviteeSource Team
+ */
+public final class PermissionBitmap {
+
+    public static final PermissionBitmap EMPTY = new PermissionBitmap(new long[0]);
+
+    private static final int MASK_STEP = 100;
+    private static final int ACTIONS = 4;
+    private static final int ACTION_MASK = (1 << ACTIONS) - 1;
+
+    private final long[] words;
+
+    private PermissionBitmap(long[] words) {
+        this.words = words;
+    }
+
+    public static PermissionBitmap of(int... permissions) {
+        if (permissions == null || permissions.length == 0) {
+            return EMPTY;
+        }
+        long[] words = new long[wordCount(Arrays.stream(permissions).max().getAsInt())];
+        for (int permission : permissions) {
+            set(words, permission);
+        }
+        return new PermissionBitmap(words);
+    }
+
+    public static PermissionBitmap of(Collection<Integer> permissions) {
+        if (permissions == null || permissions.isEmpty()) {
+            return EMPTY;
+        }
+        long[] words = new long[wordCount(permissions.stream().mapToInt(Integer::intValue).max().getAsInt())];
+        for (Integer permission : permissions) {
+            set(words, permission);
+        }
+        return new PermissionBitmap(words);
+    }
+
+    public static PermissionBitmap fromByteBuffer(ByteBuffer buffer) {
+        if (buffer == null || buffer.remaining() < Long.BYTES) {
+            return EMPTY;
+        }
+        ByteBuffer bytes = buffer.duplicate();
+        long[] words = new long[bytes.remaining() / Long.BYTES];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = bytes.getLong();
+        }
+        return new PermissionBitmap(words);
+    }
+
+    /**
+     * @return the binary form of the bitmap, null if empty since DynamoDB does not store empty binary values
+     */
+    public ByteBuffer toByteBuffer() {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        if (length == 0) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length * Long.BYTES);
+        for (int i = 0; i < length; i++) {
+            buffer.putLong(words[i]);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @param permission a permission mask plus the actions to check, or the mask alone to check any action
+     * @return true if all the actions are granted on the permission
+     */
+    public boolean hasPermission(int permission) {
+        if (permission < 0) {
+            return false;
+        }
+        int bit = permission / MASK_STEP * ACTIONS;
+        int word = bit >>> 6;
+        if (word >= words.length) {
+            return false;
+        }
+        long granted = words[word] >>> bit & ACTION_MASK;
+        int actions = permission % MASK_STEP;
+        return actions == 0 ? granted != 0 : (granted & actions) == actions;
+    }
+
+    public PermissionBitmap or(PermissionBitmap other) {
+        if (other.words.length > words.length) {
+            return other.or(this);
+        }
+        if (other.words.length == 0) {
+            return this;
+        }
+        long[] result = words.clone();
+        for (int i = 0; i < other.words.length; i++) {
+            result[i] |= other.words[i];
+        }
+        return new PermissionBitmap(result);
+    }
+
+    /**
+     * @return one permission per mask with at least one granted action, in the role format, sorted
+     */
+    public int[] toArray() {
+        int count = 0;
+        for (long word : words) {
+            for (; word != 0; word >>>= ACTIONS) {
+                if ((word & ACTION_MASK) != 0) {
+                    count++;
+                }
+            }
+        }
+        int[] permissions = new int[count];
+        int index = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            for (int bit = i << 6; word != 0; bit += ACTIONS, word >>>= ACTIONS) {
+                int actions = (int) (word & ACTION_MASK);
+                if (actions != 0) {
+                    permissions[index++] = bit / ACTIONS * MASK_STEP + actions;
+                }
+            }
+        }
+        return permissions;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int wordCount(int maxPermission) {
+        return maxPermission < 0 ? 0 : (maxPermission / MASK_STEP * ACTIONS >>> 6) + 1;
+    }
+
+    /**
+     * The 4 bits of a mask never straddle two words since 4 divides 64.
+     */
+    private static void set(long[] words, int permission) {
+        if (permission >= 0) {
+            int bit = permission / MASK_STEP * ACTIONS;
+            words[bit >>> 6] |= (long) (permission % MASK_STEP & ACTION_MASK) << bit;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(toArray(), ((PermissionBitmap) o).toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+/**
+ * The number of ratings of an api, their average and their distribution by rate.
+ *
+ * @author GraviteeSource Team
+ */
+public class RatingSummary {
+
+    public static final int MAX_RATE = 5;
+
+    private final String api;
+    private final long count;
+    private final long sum;
+    private final long[] countsByRate;
+
+    RatingSummary(String api, long count, long sum, long[] countsByRate) {
+        this.api = api;
+        this.count = count;
+        this.sum = sum;
+        this.countsByRate = countsByRate;
+    }
+
+    public String getApi() {
+        return api;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the average rate, 0 if the api has not been rated
+     */
+    public double getAverage() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param rate a rate from 1 to {@link #MAX_RATE}
+     * @return the number of ratings with this rate
+     */
+    public long getCount(int rate) {
+        if (rate < 1 || rate > MAX_RATE) {
+            throw new IllegalArgumentException(String.format("Rate must be between 1 and %d", MAX_RATE));
+        }
+        return countsByRate[rate - 1];
+    }
+}
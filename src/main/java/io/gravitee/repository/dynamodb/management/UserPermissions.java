@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import io.gravitee.repository.management.model.MembershipReferenceType;
+
+import java.util.*;
+
+/**
+ * The permissions of a user on each reference, resolved from the roles of the user memberships.
+ * Instances are immutable and shared between threads.
+ *
+ * @author GraviteeSource Team
+ */
+public class UserPermissions {
+
+    private final String userId;
+    private final String version;
+    private final Map<MembershipReferenceType, Map<String, PermissionBitmap>> permissions;
+
+    /**
+     * @param version the versions of the memberships and roles the permissions were loaded at, null if unknown
+     */
+    UserPermissions(String userId, String version, Map<MembershipReferenceType, Map<String, PermissionBitmap>> permissions) {
+        this.userId = userId;
+        this.version = version;
+        this.permissions = permissions;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    String getVersion() {
+        return version;
+    }
+
+    /**
+     * Does not allocate, so that it can be called on every authorization check.
+     *
+     * @param permission a permission mask plus the actions to check, see {@link PermissionBitmap}
+     */
+    public boolean hasPermission(MembershipReferenceType referenceType, String referenceId, int permission) {
+        PermissionBitmap bits = get(referenceType, referenceId);
+        return bits != null && bits.hasPermission(permission);
+    }
+
+    /**
+     * @return the permissions of the user on the reference, empty if the user is not a member
+     */
+    public int[] getPermissions(MembershipReferenceType referenceType, String referenceId) {
+        PermissionBitmap bits = get(referenceType, referenceId);
+        return bits == null ? new int[0] : bits.toArray();
+    }
+
+    /**
+     * @return the ids of the references of the given type the user is a member of
+     */
+    public Set<String> getReferenceIds(MembershipReferenceType referenceType) {
+        Map<String, PermissionBitmap> references = permissions.get(referenceType);
+        return references == null ? Collections.emptySet() : Collections.unmodifiableSet(references.keySet());
+    }
+
+    private PermissionBitmap get(MembershipReferenceType referenceType, String referenceId) {
+        Map<String, PermissionBitmap> references = permissions.get(referenceType);
+        return references == null ? null : references.get(referenceId);
+    }
+}
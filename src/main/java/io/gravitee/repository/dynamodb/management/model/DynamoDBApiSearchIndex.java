@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management.model;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+
+import java.util.Objects;
+
+/**
+ * Inverted index of the terms of the api names, descriptions, labels and views.
+ * The hash key is the first characters of the term and the range key is <code>term#apiId</code>, so that the apis
+ * having a term, or a term starting with a prefix, can be queried with a prefix on the range key.
+ *
+ * @author GraviteeSource Team
+ */
+@DynamoDBTable(tableName = DynamoDBGraviteeSchema.API_SEARCH_INDEX_TABLENAME)
+public class DynamoDBApiSearchIndex {
+
+    @DynamoDBHashKey
+    private String bucket;
+
+    @DynamoDBRangeKey
+    private String reference;
+
+    @DynamoDBAttribute
+    private String apiId;
+
+    @DynamoDBAttribute
+    private int weight;
+
+    public String getBucket() {
+        return bucket;
+    }
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public String getApiId() {
+        return apiId;
+    }
+    public void setApiId(String apiId) {
+        this.apiId = apiId;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DynamoDBApiSearchIndex that = (DynamoDBApiSearchIndex) o;
+        return Objects.equals(bucket, that.bucket) &&
+                Objects.equals(reference, that.reference);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bucket, reference);
+    }
+}
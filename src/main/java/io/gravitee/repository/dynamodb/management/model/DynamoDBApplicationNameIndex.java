@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management.model;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+
+import java.util.Objects;
+
+/**
+ * Inverted index of the trigrams of the application names, in upper case.
+ *
+ * @author GraviteeSource Team
+ */
+@DynamoDBTable(tableName = DynamoDBGraviteeSchema.APPLICATION_NAME_INDEX_TABLENAME)
+public class DynamoDBApplicationNameIndex {
+
+    @DynamoDBHashKey
+    private String trigram;
+
+    @DynamoDBRangeKey
+    private String applicationId;
+
+    public String getTrigram() {
+        return trigram;
+    }
+    public void setTrigram(String trigram) {
+        this.trigram = trigram;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+    public void setApplicationId(String applicationId) {
+        this.applicationId = applicationId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DynamoDBApplicationNameIndex that = (DynamoDBApplicationNameIndex) o;
+        return Objects.equals(trigram, that.trigram) &&
+                Objects.equals(applicationId, that.applicationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(trigram, applicationId);
+    }
+}
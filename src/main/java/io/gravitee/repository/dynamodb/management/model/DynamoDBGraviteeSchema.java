@@ -32,6 +32,12 @@ public interface DynamoDBGraviteeSchema {
     //Tags
     String TAG_TABLENAME = prefix + "Tag";
     ProvisionedThroughput TAG_PRO_THROU = new ProvisionedThroughput(5L, 5L);
+    //ReferenceDataVersions
+    String REFERENCE_DATA_VERSION_TABLENAME = prefix + "ReferenceDataVersion";
+    ProvisionedThroughput REFERENCE_DATA_VERSION_PRO_THROU = new ProvisionedThroughput(5L, 5L);
+    //IndexStatuses
+    String INDEX_STATUS_TABLENAME = prefix + "IndexStatus";
+    ProvisionedThroughput INDEX_STATUS_PRO_THROU = new ProvisionedThroughput(5L, 5L);
     //Users
     String USER_TABLENAME = prefix + "User";
     ProvisionedThroughput USER_PRO_THROU = new ProvisionedThroughput(5L, 5L);
@@ -41,21 +47,36 @@ public interface DynamoDBGraviteeSchema {
     //Plans
     String PLAN_TABLENAME = prefix + "Plan";
     ProvisionedThroughput PLAN_PRO_THROU = new ProvisionedThroughput(5L, 5L);
+    //PlanApiIndexes
+    String PLAN_API_INDEX_TABLENAME = prefix + "PlanApiIndex";
+    ProvisionedThroughput PLAN_API_INDEX_PRO_THROU = new ProvisionedThroughput(5L, 5L);
     //Pages
     String PAGE_TABLENAME = prefix + "Page";
     ProvisionedThroughput PAGE_PRO_THROU = new ProvisionedThroughput(5L, 5L);
     //Memberships
     String MEMBERSHIP_TABLENAME = prefix + "Membership";
     ProvisionedThroughput MEMBERSHIP_PRO_THROU = new ProvisionedThroughput(5L, 5L);
+    //MembershipRoles
+    String MEMBERSHIP_ROLE_TABLENAME = prefix + "MembershipRole";
+    ProvisionedThroughput MEMBERSHIP_ROLE_PRO_THROU = new ProvisionedThroughput(5L, 5L);
     //Groups
     String GROUP_TABLENAME = prefix + "Group";
     ProvisionedThroughput GROUP_PRO_THROU = new ProvisionedThroughput(5L, 5L);
+    //GroupIndexes
+    String GROUP_INDEX_TABLENAME = prefix + "GroupIndex";
+    ProvisionedThroughput GROUP_INDEX_PRO_THROU = new ProvisionedThroughput(5L, 5L);
     //Applications
     String APPLICATION_TABLENAME = prefix + "Application";
     ProvisionedThroughput APPLICATION_PRO_THROU = new ProvisionedThroughput(5L, 5L);
+    //ApplicationNameIndexes
+    String APPLICATION_NAME_INDEX_TABLENAME = prefix + "ApplicationNameIndex";
+    ProvisionedThroughput APPLICATION_NAME_INDEX_PRO_THROU = new ProvisionedThroughput(5L, 5L);
     //Apis
     String API_TABLENAME = prefix + "Api";
     ProvisionedThroughput API_PRO_THROU = new ProvisionedThroughput(5L, 5L);
+    //ApiSearchIndexes
+    String API_SEARCH_INDEX_TABLENAME = prefix + "ApiSearchIndex";
+    ProvisionedThroughput API_SEARCH_INDEX_PRO_THROU = new ProvisionedThroughput(5L, 5L);
     //ApiKeys
     String APIKEY_TABLENAME = prefix + "ApiKey";
     ProvisionedThroughput APIKEY_PRO_THROU = new ProvisionedThroughput(5L, 5L);
@@ -77,6 +98,9 @@ public interface DynamoDBGraviteeSchema {
     //Rating
     String RATING_TABLENAME = prefix + "Rating";
     ProvisionedThroughput RATING_PRO_THROU = new ProvisionedThroughput(5L, 5L);
+    //RatingSummaries
+    String RATING_SUMMARY_TABLENAME = prefix + "RatingSummary";
+    ProvisionedThroughput RATING_SUMMARY_PRO_THROU = new ProvisionedThroughput(5L, 5L);
     //Rating answer
     String RATING_ANSWER_TABLENAME = prefix + "RatingAnswer";
     ProvisionedThroughput RATING_ANSWER_PRO_THROU = new ProvisionedThroughput(5L, 5L);
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management.model;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+
+/**
+ * Holds one item per index table whose backfill has completed, keyed by the name of the index.
+ * The items are read and written with the low level client by {@link io.gravitee.repository.dynamodb.common.IndexBackfill}.
+ *
+ * @author GraviteeSource Team
+ */
+@DynamoDBTable(tableName = DynamoDBGraviteeSchema.INDEX_STATUS_TABLENAME)
+public class DynamoDBIndexStatus {
+
+    @DynamoDBHashKey
+    private String id;
+
+    @DynamoDBAttribute
+    private long readyAt;
+
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getReadyAt() {
+        return readyAt;
+    }
+    public void setReadyAt(long readyAt) {
+        this.readyAt = readyAt;
+    }
+}
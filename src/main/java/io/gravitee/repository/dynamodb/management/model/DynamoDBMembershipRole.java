@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management.model;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.*;
+
+import java.util.Objects;
+
+/**
+ * One item per role of a membership.
+ * The range key is <code>referenceType#roleScope:roleName#userId</code> so that the members of a reference
+ * having a given role are read with a single query. The <code>MembershipRoleUser</code> index does the same
+ * for the references of a user, with <code>referenceType#roleScope:roleName#referenceId</code>.
+ *
+ * @author GraviteeSource Team
+ */
+@DynamoDBTable(tableName = DynamoDBGraviteeSchema.MEMBERSHIP_ROLE_TABLENAME)
+public class DynamoDBMembershipRole {
+
+    @DynamoDBHashKey
+    private String referenceId;
+
+    @DynamoDBRangeKey
+    private String role;
+
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "MembershipRoleUser")
+    private String userId;
+
+    @DynamoDBIndexRangeKey(globalSecondaryIndexName = "MembershipRoleUser")
+    private String userRole;
+
+    @DynamoDBAttribute
+    private String membership;
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+    public void setReferenceId(String referenceId) {
+        this.referenceId = referenceId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUserRole() {
+        return userRole;
+    }
+    public void setUserRole(String userRole) {
+        this.userRole = userRole;
+    }
+
+    public String getMembership() {
+        return membership;
+    }
+    public void setMembership(String membership) {
+        this.membership = membership;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DynamoDBMembershipRole that = (DynamoDBMembershipRole) o;
+        return Objects.equals(referenceId, that.referenceId) &&
+                Objects.equals(role, that.role);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(referenceId, role);
+    }
+}
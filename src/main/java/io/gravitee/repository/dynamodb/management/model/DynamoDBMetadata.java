@@ -31,11 +31,12 @@ import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperField
 public class DynamoDBMetadata {
     @DynamoDBHashKey
     private String id;
-    @DynamoDBAttribute
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "MetadataKey")
     private String key;
     @DynamoDBIndexRangeKey(globalSecondaryIndexName = "Reference")
     private String referenceId;
     @DynamoDBIndexHashKey(globalSecondaryIndexName = "Reference")
+    @DynamoDBIndexRangeKey(globalSecondaryIndexName = "MetadataKey")
     private String referenceType;
     @DynamoDBAttribute
     private String name;
@@ -17,6 +17,8 @@ package io.gravitee.repository.dynamodb.management.model;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTyped;
 
@@ -43,13 +45,23 @@ public class DynamoDBPage {
     private String content;
     @DynamoDBAttribute
     private String lastContributor;
-    @DynamoDBAttribute
+    @DynamoDBIndexRangeKey(globalSecondaryIndexNames = {"PageParent", "PageHomepage"})
     private int order;
     @DynamoDBAttribute(attributeName = "published")
     @DynamoDBTyped(BOOL)
     private boolean published;
     @DynamoDBAttribute
     private String api;
+    /**
+     * The api of the page, or a sentinel value for the portal pages.
+     */
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "PageParent")
+    private String parent;
+    /**
+     * Same as the parent, only set on homepages.
+     */
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "PageHomepage")
+    private String homepageParent;
     @DynamoDBAttribute
     private long createdAt;
     @DynamoDBAttribute
@@ -84,6 +96,20 @@ public class DynamoDBPage {
         this.api = api;
     }
 
+    public String getParent() {
+        return parent;
+    }
+    public void setParent(String parent) {
+        this.parent = parent;
+    }
+
+    public String getHomepageParent() {
+        return homepageParent;
+    }
+    public void setHomepageParent(String homepageParent) {
+        this.homepageParent = homepageParent;
+    }
+
     public String getContent() {
         return content;
     }
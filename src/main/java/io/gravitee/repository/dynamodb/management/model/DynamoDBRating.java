@@ -28,7 +28,7 @@ public class DynamoDBRating {
 
     @DynamoDBHashKey
     private String id;
-    @DynamoDBIndexHashKey(globalSecondaryIndexName = "RatingApiAndUser")
+    @DynamoDBIndexHashKey(globalSecondaryIndexNames = {"RatingApiAndUser", "RatingApiAndCreatedAt"})
     private String api;
     @DynamoDBIndexRangeKey(globalSecondaryIndexName = "RatingApiAndUser")
     private String user;
@@ -38,7 +38,7 @@ public class DynamoDBRating {
     private String title;
     @DynamoDBAttribute
     private String comment;
-    @DynamoDBAttribute
+    @DynamoDBIndexRangeKey(globalSecondaryIndexName = "RatingApiAndCreatedAt")
     private long createdAt;
     @DynamoDBAttribute
     private long updatedAt;
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management.model;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+
+import java.util.Objects;
+
+/**
+ * Counters of the ratings of an api: number of ratings, sum of the rates and number of ratings per rate from 1 to 5.
+ * They are only written with atomic updates, never saved through the mapper.
+ * The counters of an api created before the summaries existed only hold the later changes until it has been seeded.
+ *
+ * @author GraviteeSource Team
+ */
+@DynamoDBTable(tableName = DynamoDBGraviteeSchema.RATING_SUMMARY_TABLENAME)
+public class DynamoDBRatingSummary {
+
+    @DynamoDBHashKey
+    private String api;
+    @DynamoDBAttribute
+    private long count;
+    @DynamoDBAttribute
+    private long sum;
+    @DynamoDBAttribute
+    private long rate1;
+    @DynamoDBAttribute
+    private long rate2;
+    @DynamoDBAttribute
+    private long rate3;
+    @DynamoDBAttribute
+    private long rate4;
+    @DynamoDBAttribute
+    private long rate5;
+    @DynamoDBAttribute
+    private boolean seeded;
+    @DynamoDBAttribute
+    private long updatedAt;
+
+    public String getApi() {
+        return api;
+    }
+
+    public void setApi(String api) {
+        this.api = api;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    public long getRate1() {
+        return rate1;
+    }
+
+    public void setRate1(long rate1) {
+        this.rate1 = rate1;
+    }
+
+    public long getRate2() {
+        return rate2;
+    }
+
+    public void setRate2(long rate2) {
+        this.rate2 = rate2;
+    }
+
+    public long getRate3() {
+        return rate3;
+    }
+
+    public void setRate3(long rate3) {
+        this.rate3 = rate3;
+    }
+
+    public long getRate4() {
+        return rate4;
+    }
+
+    public void setRate4(long rate4) {
+        this.rate4 = rate4;
+    }
+
+    public long getRate5() {
+        return rate5;
+    }
+
+    public void setRate5(long rate5) {
+        this.rate5 = rate5;
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public void setSeeded(boolean seeded) {
+        this.seeded = seeded;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DynamoDBRatingSummary)) return false;
+        DynamoDBRatingSummary that = (DynamoDBRatingSummary) o;
+        return Objects.equals(api, that.api);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(api);
+    }
+
+    @Override
+    public String toString() {
+        return "DynamoDBRatingSummary{" +
+                "api='" + api + '\'' +
+                ", count=" + count +
+                ", sum=" + sum +
+                ", rate1=" + rate1 +
+                ", rate2=" + rate2 +
+                ", rate3=" + rate3 +
+                ", rate4=" + rate4 +
+                ", rate5=" + rate5 +
+                ", seeded=" + seeded +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
@@ -17,11 +17,11 @@ package io.gravitee.repository.dynamodb.management.model;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.*;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.Set;
 
 import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperFieldModel.DynamoDBAttributeType.BOOL;
-import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperFieldModel.DynamoDBAttributeType.NS;
 
 /**
  * @author Nicolas GERAUD (nicolas.geraud at graviteesource.com) 
@@ -44,9 +44,14 @@ public class DynamoDBRole {
     @DynamoDBAttribute(attributeName = "systemRole")
     @DynamoDBTyped(BOOL)
     private boolean system;
+    /**
+     * Permissions written before the bitmap existed, or that the bitmap cannot hold, read when there is no bitmap.
+     */
     @DynamoDBAttribute
     private Set<Integer> permissions;
     @DynamoDBAttribute
+    private ByteBuffer permissionBitmap;
+    @DynamoDBAttribute
     private long createdAt;
     @DynamoDBAttribute
     private long updatedAt;
@@ -101,6 +106,13 @@ public class DynamoDBRole {
         this.permissions = permissions;
     }
 
+    public ByteBuffer getPermissionBitmap() {
+        return permissionBitmap;
+    }
+    public void setPermissionBitmap(ByteBuffer permissionBitmap) {
+        this.permissionBitmap = permissionBitmap;
+    }
+
     public long getCreatedAt() {
         return createdAt;
     }
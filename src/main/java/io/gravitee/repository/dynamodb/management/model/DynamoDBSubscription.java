@@ -17,6 +17,8 @@ package io.gravitee.repository.dynamodb.management.model;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
 
 /**
@@ -28,15 +30,15 @@ public class DynamoDBSubscription {
 
     @DynamoDBHashKey
     private String id;
-    @DynamoDBAttribute
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "SubscriptionPlan")
     private String plan;
-    @DynamoDBAttribute
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "SubscriptionApplication")
     private String application;
     @DynamoDBAttribute
     private long processedAt;
     @DynamoDBAttribute
     private String reason;
-    @DynamoDBAttribute
+    @DynamoDBIndexRangeKey(globalSecondaryIndexNames = {"SubscriptionPlan", "SubscriptionApplication"})
     private String status;
     @DynamoDBAttribute
     private String processedBy;
@@ -44,8 +46,13 @@ public class DynamoDBSubscription {
     private String subscribedBy;
     @DynamoDBAttribute
     private long startingAt;
-    @DynamoDBAttribute
+    @DynamoDBIndexRangeKey(globalSecondaryIndexName = "SubscriptionEnding")
     private long endingAt;
+    /**
+     * Day of <code>endingAt</code>, only set for accepted subscriptions so that the ending index stays sparse.
+     */
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "SubscriptionEnding")
+    private String endingDay;
     @DynamoDBAttribute
     private long createdAt;
     @DynamoDBAttribute
@@ -123,6 +130,13 @@ public class DynamoDBSubscription {
         this.endingAt = endingAt;
     }
 
+    public String getEndingDay() {
+        return endingDay;
+    }
+    public void setEndingDay(String endingDay) {
+        this.endingDay = endingDay;
+    }
+
     public long getCreatedAt() {
         return createdAt;
     }
@@ -48,18 +48,71 @@ public class DynamoDBTestRepositoryInitializer implements TestRepositoryInitiali
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBTag.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.TAG_PRO_THROU));
+        TableUtils.createTableIfNotExists(dynamo, mapper.
+                generateCreateTableRequest(DynamoDBReferenceDataVersion.class).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.REFERENCE_DATA_VERSION_PRO_THROU));
+        TableUtils.createTableIfNotExists(dynamo, mapper.
+                generateCreateTableRequest(DynamoDBIndexStatus.class).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.INDEX_STATUS_PRO_THROU));
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBUser.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.USER_PRO_THROU));
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBSubscription.class).
-                withProvisionedThroughput(DynamoDBGraviteeSchema.SUBSCRIPTION_PRO_THROU));
+                withProvisionedThroughput(DynamoDBGraviteeSchema.SUBSCRIPTION_PRO_THROU).
+                withGlobalSecondaryIndexes(Arrays.asList(
+                        new GlobalSecondaryIndex().
+                                withIndexName("SubscriptionPlan").
+                                withKeySchema(
+                                        new KeySchemaElement().withAttributeName("plan").withKeyType(KeyType.HASH),
+                                        new KeySchemaElement().withAttributeName("status").withKeyType(KeyType.RANGE)
+                                ).
+                                withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
+                                withProvisionedThroughput(DynamoDBGraviteeSchema.SUBSCRIPTION_PRO_THROU),
+                        new GlobalSecondaryIndex().
+                                withIndexName("SubscriptionApplication").
+                                withKeySchema(
+                                        new KeySchemaElement().withAttributeName("application").withKeyType(KeyType.HASH),
+                                        new KeySchemaElement().withAttributeName("status").withKeyType(KeyType.RANGE)
+                                ).
+                                withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
+                                withProvisionedThroughput(DynamoDBGraviteeSchema.SUBSCRIPTION_PRO_THROU),
+                        new GlobalSecondaryIndex().
+                                withIndexName("SubscriptionEnding").
+                                withKeySchema(
+                                        new KeySchemaElement().withAttributeName("endingDay").withKeyType(KeyType.HASH),
+                                        new KeySchemaElement().withAttributeName("endingAt").withKeyType(KeyType.RANGE)
+                                ).
+                                withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
+                                withProvisionedThroughput(DynamoDBGraviteeSchema.SUBSCRIPTION_PRO_THROU)
+                )));
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBPlan.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.PLAN_PRO_THROU));
+        TableUtils.createTableIfNotExists(dynamo, mapper.
+                generateCreateTableRequest(DynamoDBPlanApiIndex.class).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.PLAN_API_INDEX_PRO_THROU));
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBPage.class).
-                withProvisionedThroughput(DynamoDBGraviteeSchema.PAGE_PRO_THROU));
+                withProvisionedThroughput(DynamoDBGraviteeSchema.PAGE_PRO_THROU).
+                withGlobalSecondaryIndexes(Arrays.asList(
+                        new GlobalSecondaryIndex().
+                                withIndexName("PageParent").
+                                withKeySchema(
+                                        new KeySchemaElement().withAttributeName("parent").withKeyType(KeyType.HASH),
+                                        new KeySchemaElement().withAttributeName("order").withKeyType(KeyType.RANGE)
+                                ).
+                                withProjection(new Projection().withProjectionType(ProjectionType.KEYS_ONLY)).
+                                withProvisionedThroughput(DynamoDBGraviteeSchema.PAGE_PRO_THROU),
+                        new GlobalSecondaryIndex().
+                                withIndexName("PageHomepage").
+                                withKeySchema(
+                                        new KeySchemaElement().withAttributeName("homepageParent").withKeyType(KeyType.HASH),
+                                        new KeySchemaElement().withAttributeName("order").withKeyType(KeyType.RANGE)
+                                ).
+                                withProjection(new Projection().withProjectionType(ProjectionType.KEYS_ONLY)).
+                                withProvisionedThroughput(DynamoDBGraviteeSchema.PAGE_PRO_THROU)
+                )));
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBMembership.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.MEMBERSHIP_PRO_THROU).
@@ -81,9 +134,25 @@ public class DynamoDBTestRepositoryInitializer implements TestRepositoryInitiali
                                 withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
                                 withProvisionedThroughput(DynamoDBGraviteeSchema.MEMBERSHIP_PRO_THROU)
                         )));
+        TableUtils.createTableIfNotExists(dynamo, mapper.
+                generateCreateTableRequest(DynamoDBMembershipRole.class).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.MEMBERSHIP_ROLE_PRO_THROU).
+                withGlobalSecondaryIndexes(singletonList(
+                        new GlobalSecondaryIndex().
+                                withIndexName("MembershipRoleUser").
+                                withKeySchema(
+                                        new KeySchemaElement().withAttributeName("userId").withKeyType(KeyType.HASH),
+                                        new KeySchemaElement().withAttributeName("userRole").withKeyType(KeyType.RANGE)
+                                ).
+                                withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
+                                withProvisionedThroughput(DynamoDBGraviteeSchema.MEMBERSHIP_ROLE_PRO_THROU)
+                )));
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBGroup.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.GROUP_PRO_THROU));
+        TableUtils.createTableIfNotExists(dynamo, mapper.
+                generateCreateTableRequest(DynamoDBGroupIndex.class).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.GROUP_INDEX_PRO_THROU));
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBApplication.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.APPLICATION_PRO_THROU).
@@ -97,6 +166,12 @@ public class DynamoDBTestRepositoryInitializer implements TestRepositoryInitiali
                                 withProvisionedThroughput(DynamoDBGraviteeSchema.APPLICATION_PRO_THROU)
 
                 )));
+        TableUtils.createTableIfNotExists(dynamo, mapper.
+                generateCreateTableRequest(DynamoDBApplicationNameIndex.class).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.APPLICATION_NAME_INDEX_PRO_THROU));
+        TableUtils.createTableIfNotExists(dynamo, mapper.
+                generateCreateTableRequest(DynamoDBApiSearchIndex.class).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.API_SEARCH_INDEX_PRO_THROU));
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBApi.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.API_PRO_THROU).
@@ -148,7 +223,7 @@ public class DynamoDBTestRepositoryInitializer implements TestRepositoryInitiali
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBMetadata.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.METADATA_PRO_THROU).
-                withGlobalSecondaryIndexes(singletonList(
+                withGlobalSecondaryIndexes(Arrays.asList(
                         new GlobalSecondaryIndex().
                                 withIndexName("Reference").
                                 withKeySchema(
@@ -156,6 +231,14 @@ public class DynamoDBTestRepositoryInitializer implements TestRepositoryInitiali
                                         new KeySchemaElement().withAttributeName("referenceId").withKeyType(KeyType.RANGE)
                                 ).
                                 withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
+                                withProvisionedThroughput(DynamoDBGraviteeSchema.METADATA_PRO_THROU),
+                        new GlobalSecondaryIndex().
+                                withIndexName("MetadataKey").
+                                withKeySchema(
+                                        new KeySchemaElement().withAttributeName("key").withKeyType(KeyType.HASH),
+                                        new KeySchemaElement().withAttributeName("referenceType").withKeyType(KeyType.RANGE)
+                                ).
+                                withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
                                 withProvisionedThroughput(DynamoDBGraviteeSchema.METADATA_PRO_THROU)
                 )));
         TableUtils.createTableIfNotExists(dynamo, mapper.
@@ -173,7 +256,7 @@ public class DynamoDBTestRepositoryInitializer implements TestRepositoryInitiali
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBRating.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.RATING_PRO_THROU).
-                withGlobalSecondaryIndexes(singletonList(
+                withGlobalSecondaryIndexes(Arrays.asList(
                         new GlobalSecondaryIndex().
                                 withIndexName("RatingApiAndUser").
                                 withKeySchema(
@@ -181,8 +264,19 @@ public class DynamoDBTestRepositoryInitializer implements TestRepositoryInitiali
                                         new KeySchemaElement().withAttributeName("user").withKeyType(KeyType.RANGE)
                                 ).
                                 withProjection(new Projection().withProjectionType(ProjectionType.ALL)).
+                                withProvisionedThroughput(DynamoDBGraviteeSchema.RATING_PRO_THROU),
+                        new GlobalSecondaryIndex().
+                                withIndexName("RatingApiAndCreatedAt").
+                                withKeySchema(
+                                        new KeySchemaElement().withAttributeName("api").withKeyType(KeyType.HASH),
+                                        new KeySchemaElement().withAttributeName("createdAt").withKeyType(KeyType.RANGE)
+                                ).
+                                withProjection(new Projection().withProjectionType(ProjectionType.KEYS_ONLY)).
                                 withProvisionedThroughput(DynamoDBGraviteeSchema.RATING_PRO_THROU)
                 )));
+        TableUtils.createTableIfNotExists(dynamo, mapper.
+                generateCreateTableRequest(DynamoDBRatingSummary.class).
+                withProvisionedThroughput(DynamoDBGraviteeSchema.RATING_SUMMARY_PRO_THROU));
         TableUtils.createTableIfNotExists(dynamo, mapper.
                 generateCreateTableRequest(DynamoDBRatingAnswer.class).
                 withProvisionedThroughput(DynamoDBGraviteeSchema.RATING_ANSWER_PRO_THROU).
@@ -205,20 +299,28 @@ public class DynamoDBTestRepositoryInitializer implements TestRepositoryInitiali
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBTenant.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBView.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBTag.class));
+        TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBReferenceDataVersion.class));
+        TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBIndexStatus.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBUser.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBSubscription.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBPlan.class));
+        TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBPlanApiIndex.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBPage.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBMembership.class));
+        TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBMembershipRole.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBGroup.class));
+        TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBGroupIndex.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBApplication.class));
+        TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBApplicationNameIndex.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBApi.class));
+        TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBApiSearchIndex.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBApiKey.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBEvent.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBEventSearchIndex.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBMetadata.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBRole.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBRating.class));
+        TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBRatingSummary.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBRatingAnswer.class));
         TableUtils.deleteTableIfExists(dynamo, mapper.generateDeleteTableRequest(DynamoDBAudit.class));
     }
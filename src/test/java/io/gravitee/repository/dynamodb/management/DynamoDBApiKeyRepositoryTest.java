@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.*;
+import io.gravitee.repository.dynamodb.common.bulk.BulkResult;
+import io.gravitee.repository.dynamodb.common.bulk.CapacityBudget;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBApiKey;
+import io.gravitee.repository.management.model.ApiKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DynamoDBApiKeyRepositoryTest {
+
+    private static final int CONCURRENCY = 2;
+
+    private final Set<String> revokedKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> failingKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> unprocessedKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+
+    private ThreadPoolExecutor executor;
+    private DynamoDBApiKeyRepository repository;
+
+    @Before
+    public void setUp() {
+        executor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        FakeDynamoDB dynamo = new FakeDynamoDB();
+        repository = new DynamoDBApiKeyRepository();
+        ReflectionTestUtils.setField(repository, "dynamo", dynamo);
+        ReflectionTestUtils.setField(repository, "mapper", new FakeMapper(dynamo));
+        ReflectionTestUtils.setField(repository, "dynamoDBExecutor", executor);
+        ReflectionTestUtils.setField(repository, "bulkCapacityBudget", new CapacityBudget(CONCURRENCY, 0));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldAccountForEachRevokedKey() throws Exception {
+        revokedKeys.add("revoked-meanwhile");
+        failingKeys.add("failing");
+
+        BulkResult result = repository.revoke(new HashSet<>(Arrays.asList(
+                apiKey("active", false), apiKey("revoked-meanwhile", false),
+                apiKey("failing", false), apiKey("already-revoked", true))), new Date(), null);
+
+        assertEquals(3, result.getTotal());
+        assertEquals(3, result.getProcessed());
+        assertEquals(Collections.singleton("active"), result.getSucceeded());
+        assertEquals(new HashSet<>(Arrays.asList("revoked-meanwhile", "failing")), result.getFailures().keySet());
+        assertFalse(result.isSuccessful());
+        assertTrue(revokedKeys.contains("active"));
+    }
+
+    @Test
+    public void shouldExpireKeysWithBoundedConcurrency() throws Exception {
+        Set<ApiKey> apiKeys = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            apiKeys.add(apiKey("key" + i, false));
+        }
+        List<String> progress = Collections.synchronizedList(new ArrayList<>());
+
+        BulkResult result = repository.expire(apiKeys, new Date(), (id, success, processed, total) -> progress.add(id));
+
+        assertTrue(result.isSuccessful());
+        assertEquals(100, result.getSucceeded().size());
+        assertEquals(100, progress.size());
+        assertTrue(maxRunning.get() <= CONCURRENCY);
+        assertTrue(maxQueued.get() <= CONCURRENCY);
+    }
+
+    @Test
+    public void shouldAccountForEachSavedKey() throws Exception {
+        List<ApiKey> apiKeys = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            apiKeys.add(apiKey("key" + i, false));
+        }
+        unprocessedKeys.add("key3");
+        failingKeys.add("key27");
+
+        BulkResult result = repository.saveAll(apiKeys, null);
+
+        assertEquals(30, result.getTotal());
+        assertEquals(30, result.getProcessed());
+        // the second chunk fails as a whole
+        assertEquals(24, result.getSucceeded().size());
+        assertEquals(6, result.getFailures().size());
+        assertTrue(result.getFailures().containsKey("key3"));
+        assertTrue(result.getFailures().containsKey("key29"));
+        assertFalse(result.getSucceeded().contains("key3"));
+    }
+
+    @Test
+    public void shouldSaveNothing() throws Exception {
+        BulkResult result = repository.saveAll(Collections.emptyList(), null);
+
+        assertEquals(0, result.getTotal());
+        assertTrue(result.isSuccessful());
+    }
+
+    private static ApiKey apiKey(String key, boolean revoked) {
+        ApiKey apiKey = new ApiKey();
+        apiKey.setKey(key);
+        apiKey.setRevoked(revoked);
+        return apiKey;
+    }
+
+    private void enter() {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        maxQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+    }
+
+    private class FakeDynamoDB extends AbstractAmazonDynamoDB {
+
+        @Override
+        public UpdateItemResult updateItem(UpdateItemRequest request) {
+            enter();
+            try {
+                String key = request.getKey().get("key").getS();
+                if (failingKeys.contains(key)) {
+                    throw new AmazonServiceException("Internal error");
+                }
+                if (revokedKeys.contains(key)) {
+                    throw new ConditionalCheckFailedException("The conditional request failed");
+                }
+                if (request.getUpdateExpression().contains("revoked = :revoked")) {
+                    revokedKeys.add(key);
+                }
+                return new UpdateItemResult();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private class FakeMapper extends DynamoDBMapper {
+
+        private FakeMapper(FakeDynamoDB dynamo) {
+            super(dynamo);
+        }
+
+        @Override
+        public List<FailedBatch> batchSave(Iterable<? extends Object> objectsToSave) {
+            enter();
+            try {
+                List<WriteRequest> unprocessed = new ArrayList<>();
+                for (Object object : objectsToSave) {
+                    String key = ((DynamoDBApiKey) object).getKey();
+                    if (failingKeys.contains(key)) {
+                        throw new AmazonServiceException("Internal error");
+                    }
+                    if (unprocessedKeys.contains(key)) {
+                        unprocessed.add(new WriteRequest().withPutRequest(new PutRequest().
+                                withItem(Collections.singletonMap("key", new AttributeValue().withS(key)))));
+                    }
+                }
+                if (unprocessed.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                FailedBatch failedBatch = new FailedBatch();
+                failedBatch.setUnprocessedItems(Collections.singletonMap("GraviteeioApimApiKey", unprocessed));
+                failedBatch.setException(new AmazonServiceException("Throughput exceeded"));
+                return Collections.singletonList(failedBatch);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import io.gravitee.repository.dynamodb.management.model.DynamoDBApi;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DynamoDBApiSearchIndexRepositoryTest {
+
+    @Test
+    public void shouldTokenizeInLowerCaseLettersAndDigits() {
+        assertEquals(Arrays.asList("hello", "wörld", "42", "v2"),
+                DynamoDBApiSearchIndexRepository.tokenize("Hello, WÖRLD_42! (v2)"));
+    }
+
+    @Test
+    public void shouldTokenizeNothing() {
+        assertTrue(DynamoDBApiSearchIndexRepository.tokenize(null).isEmpty());
+        assertTrue(DynamoDBApiSearchIndexRepository.tokenize("").isEmpty());
+        assertTrue(DynamoDBApiSearchIndexRepository.tokenize(" -- ").isEmpty());
+    }
+
+    @Test
+    public void shouldParseTermsAndPrefixes() {
+        Map<String, Boolean> expected = new LinkedHashMap<>();
+        expected.put("weather", false);
+        expected.put("for", true);
+        assertEquals(expected, DynamoDBApiSearchIndexRepository.parse("  Weather   for* "));
+    }
+
+    @Test
+    public void shouldParsePrefixOnLastTermOfWord() {
+        Map<String, Boolean> expected = new LinkedHashMap<>();
+        expected.put("foo", false);
+        expected.put("bar", true);
+        assertEquals(expected, DynamoDBApiSearchIndexRepository.parse("foo-bar*"));
+    }
+
+    @Test
+    public void shouldParsePrefixShorterThanBucketAsTerm() {
+        assertEquals(Collections.singletonMap("a", false), DynamoDBApiSearchIndexRepository.parse("a*"));
+    }
+
+    @Test
+    public void shouldParseSameTermOnceAsPrefixIfAnyIs() {
+        assertEquals(Collections.singletonMap("api", true), DynamoDBApiSearchIndexRepository.parse("api API*"));
+    }
+
+    @Test
+    public void shouldParseNothing() {
+        assertTrue(DynamoDBApiSearchIndexRepository.parse(null).isEmpty());
+        assertTrue(DynamoDBApiSearchIndexRepository.parse("   ").isEmpty());
+        assertTrue(DynamoDBApiSearchIndexRepository.parse("*").isEmpty());
+    }
+
+    @Test
+    public void shouldWeighTermsByField() {
+        DynamoDBApi api = api("Weather api", "Weather forecast", Collections.singletonList("forecast"),
+                Collections.singleton("meteo"));
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("weather", DynamoDBApiSearchIndexRepository.NAME_WEIGHT + DynamoDBApiSearchIndexRepository.DESCRIPTION_WEIGHT);
+        expected.put("api", DynamoDBApiSearchIndexRepository.NAME_WEIGHT);
+        expected.put("forecast", DynamoDBApiSearchIndexRepository.DESCRIPTION_WEIGHT + DynamoDBApiSearchIndexRepository.LABEL_WEIGHT);
+        expected.put("meteo", DynamoDBApiSearchIndexRepository.VIEW_WEIGHT);
+        assertEquals(expected, DynamoDBApiSearchIndexRepository.terms(api));
+    }
+
+    @Test
+    public void shouldCountTermOncePerField() {
+        assertEquals(Collections.singletonMap("api", DynamoDBApiSearchIndexRepository.NAME_WEIGHT),
+                DynamoDBApiSearchIndexRepository.terms(api("api API api", null, null, null)));
+        assertTrue(DynamoDBApiSearchIndexRepository.terms(null).isEmpty());
+    }
+
+    @Test
+    public void shouldRankApisMatchingAllClauses() {
+        List<String> ids = DynamoDBApiSearchIndexRepository.rank(Arrays.asList(
+                weights("a", 1, "b", 8, "c", 4),
+                weights("a", 8, "b", 4)), true);
+
+        assertEquals(Arrays.asList("b", "a"), ids);
+    }
+
+    @Test
+    public void shouldRankApisMatchingAnyClause() {
+        List<String> ids = DynamoDBApiSearchIndexRepository.rank(Arrays.asList(
+                weights("a", 1, "b", 8),
+                weights("a", 4, "c", 5)), false);
+
+        assertEquals(Arrays.asList("b", "a", "c"), ids);
+    }
+
+    @Test
+    public void shouldRankSameScoreById() {
+        List<String> ids = DynamoDBApiSearchIndexRepository.rank(Collections.singletonList(
+                weights("b", 4, "a", 4, "c", 4)), false);
+
+        assertEquals(Arrays.asList("a", "b", "c"), ids);
+    }
+
+    @Test
+    public void shouldRankNothing() {
+        assertTrue(DynamoDBApiSearchIndexRepository.rank(Collections.emptyList(), true).isEmpty());
+        assertTrue(DynamoDBApiSearchIndexRepository.rank(Arrays.asList(
+                weights("a", 1), weights("b", 1)), true).isEmpty());
+    }
+
+    @Test
+    public void shouldMatchTermsAndPrefixes() {
+        DynamoDBApi api = api("Weather forecast", null, null, null);
+
+        assertTrue(DynamoDBApiSearchIndexRepository.matches(api, "weather fore*", true));
+        assertFalse(DynamoDBApiSearchIndexRepository.matches(api, "weather fore", true));
+        assertTrue(DynamoDBApiSearchIndexRepository.matches(api, "weather fore", false));
+        assertFalse(DynamoDBApiSearchIndexRepository.matches(api, "traffic", false));
+        assertFalse(DynamoDBApiSearchIndexRepository.matches(api, " ", false));
+    }
+
+    private static DynamoDBApi api(String name, String description, List<String> labels, Set<String> views) {
+        DynamoDBApi api = new DynamoDBApi();
+        api.setId("api");
+        api.setName(name);
+        api.setDescription(description);
+        api.setLabels(labels);
+        api.setViews(views);
+        return api;
+    }
+
+    private static Map<String, Integer> weights(Object... idsAndWeights) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (int i = 0; i < idsAndWeights.length; i += 2) {
+            weights.put((String) idsAndWeights[i], (Integer) idsAndWeights[i + 1]);
+        }
+        return weights;
+    }
+}
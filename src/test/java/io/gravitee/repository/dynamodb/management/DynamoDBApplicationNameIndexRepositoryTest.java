@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DynamoDBApplicationNameIndexRepositoryTest {
+
+    @Test
+    public void shouldSplitNameIntoUpperCaseTrigrams() {
+        assertEquals(new HashSet<>(Arrays.asList("MY ", "Y A", " AP", "APP")),
+                DynamoDBApplicationNameIndexRepository.trigrams("My app"));
+    }
+
+    @Test
+    public void shouldKeepEachTrigramOnce() {
+        assertEquals(new HashSet<>(Arrays.asList("AAA")), DynamoDBApplicationNameIndexRepository.trigrams("aaaaa"));
+    }
+
+    @Test
+    public void shouldHaveSingleTrigramForThreeCharacters() {
+        assertEquals(new HashSet<>(Arrays.asList("APP")), DynamoDBApplicationNameIndexRepository.trigrams("app"));
+    }
+
+    @Test
+    public void shouldHaveNoTrigramForShortName() {
+        assertTrue(DynamoDBApplicationNameIndexRepository.trigrams("ap").isEmpty());
+        assertTrue(DynamoDBApplicationNameIndexRepository.trigrams("").isEmpty());
+        assertTrue(DynamoDBApplicationNameIndexRepository.trigrams(null).isEmpty());
+    }
+}
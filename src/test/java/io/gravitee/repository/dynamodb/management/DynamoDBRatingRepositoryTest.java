@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.*;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBRating;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DynamoDBRatingRepositoryTest {
+
+    @Test
+    public void shouldDecodeEncodedCursor() {
+        DynamoDBRating rating = new DynamoDBRating();
+        rating.setApi("api");
+        rating.setId("rating:with:separators");
+        rating.setCreatedAt(1500000000000L);
+
+        DynamoDBRating start = DynamoDBRatingRepository.decodeCursor("api", DynamoDBRatingRepository.encodeCursor(rating));
+
+        assertEquals("api", start.getApi());
+        assertEquals("rating:with:separators", start.getId());
+        assertEquals(1500000000000L, start.getCreatedAt());
+    }
+
+    @Test
+    public void shouldEncodeUrlSafeCursor() {
+        DynamoDBRating rating = new DynamoDBRating();
+        rating.setId("?>?>?>");
+        rating.setCreatedAt(1L);
+
+        String cursor = DynamoDBRatingRepository.encodeCursor(rating);
+
+        assertTrue(cursor, cursor.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    public void shouldDecodeNullCursorAsFirstPage() {
+        assertNull(DynamoDBRatingRepository.decodeCursor("api", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCursorNotInBase64() {
+        DynamoDBRatingRepository.decodeCursor("api", "not a cursor!");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCursorWithoutSeparator() {
+        DynamoDBRatingRepository.decodeCursor("api", encode("1500000000000"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCursorWithInvalidDate() {
+        DynamoDBRatingRepository.decodeCursor("api", encode("yesterday:rating"));
+    }
+
+    @Test
+    public void shouldDecrementCountersWithDeletedRating() throws Exception {
+        List<UpdateItemRequest> updates = new ArrayList<>();
+        DynamoDBRatingRepository repository = repository(updates);
+
+        repository.delete("rating");
+
+        assertEquals(1, updates.size());
+        Map<String, String> deltas = deltas(updates.get(0));
+        assertEquals("-1", deltas.get("count"));
+        assertEquals("-4", deltas.get("sum"));
+        assertEquals("-1", deltas.get("rate4"));
+    }
+
+    @Test
+    public void shouldNotDecrementCountersWithoutRating() throws Exception {
+        List<UpdateItemRequest> updates = new ArrayList<>();
+        DynamoDBRatingRepository repository = repository(updates);
+
+        repository.delete("unknown");
+
+        assertTrue(updates.isEmpty());
+    }
+
+    /**
+     * The stored rating "rating" has a rate of 4, the summary updates are recorded.
+     */
+    private static DynamoDBRatingRepository repository(List<UpdateItemRequest> updates) {
+        AbstractAmazonDynamoDB dynamo = new AbstractAmazonDynamoDB() {
+            @Override
+            public DeleteItemResult deleteItem(DeleteItemRequest request) {
+                assertEquals(ReturnValue.ALL_OLD.toString(), request.getReturnValues());
+                if (!"rating".equals(request.getKey().get("id").getS())) {
+                    throw new ConditionalCheckFailedException("The conditional request failed");
+                }
+                Map<String, AttributeValue> item = new HashMap<>();
+                item.put("id", new AttributeValue().withS("rating"));
+                item.put("api", new AttributeValue().withS("api"));
+                item.put("rate", new AttributeValue().withN("4"));
+                return new DeleteItemResult().withAttributes(item);
+            }
+
+            @Override
+            public UpdateItemResult updateItem(UpdateItemRequest request) {
+                updates.add(request);
+                return new UpdateItemResult();
+            }
+        };
+        DynamoDBRatingSummaryRepository summaryRepository = new DynamoDBRatingSummaryRepository();
+        ReflectionTestUtils.setField(summaryRepository, "dynamo", dynamo);
+        DynamoDBRatingRepository repository = new DynamoDBRatingRepository();
+        ReflectionTestUtils.setField(repository, "dynamo", dynamo);
+        ReflectionTestUtils.setField(repository, "mapper", new DynamoDBMapper(dynamo));
+        ReflectionTestUtils.setField(repository, "summaryRepository", summaryRepository);
+        return repository;
+    }
+
+    /**
+     * @return the value added to each attribute by the update
+     */
+    private static Map<String, String> deltas(UpdateItemRequest request) {
+        Map<String, String> deltas = new HashMap<>();
+        request.getExpressionAttributeNames().forEach((name, attribute) -> {
+            AttributeValue value = request.getExpressionAttributeValues().get(":" + name.substring(1));
+            if (value != null) {
+                deltas.put(attribute, value.getN());
+            }
+        });
+        return deltas;
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import io.gravitee.repository.dynamodb.management.model.DynamoDBRatingSummary;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DynamoDBRatingSummaryRepositoryTest {
+
+    private final List<UpdateItemRequest> updates = new ArrayList<>();
+
+    private DynamoDBRatingSummaryRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new DynamoDBRatingSummaryRepository();
+        ReflectionTestUtils.setField(repository, "dynamo", new AbstractAmazonDynamoDB() {
+            @Override
+            public UpdateItemResult updateItem(UpdateItemRequest request) {
+                updates.add(request);
+                return new UpdateItemResult();
+            }
+        });
+    }
+
+    @Test
+    public void shouldSeedSummaryNeverUpdated() {
+        DynamoDBRatingSummary previous = summary(2, 7, 0);
+
+        assertTrue(repository.seed("api", previous, Arrays.asList((byte) 3, (byte) 4), oldDate()));
+
+        UpdateItemRequest request = updates.get(0);
+        assertTrue(request.getConditionExpression().endsWith("attribute_not_exists(#u)"));
+        assertAllValuesUsed(request);
+    }
+
+    @Test
+    public void shouldSeedSummaryUpdatedBefore() {
+        DynamoDBRatingSummary previous = summary(2, 7, oldDate());
+
+        assertTrue(repository.seed("api", previous, Arrays.asList((byte) 3, (byte) 4), oldDate()));
+
+        UpdateItemRequest request = updates.get(0);
+        assertTrue(request.getConditionExpression().endsWith("#u = :u"));
+        assertEquals(String.valueOf(oldDate()), request.getExpressionAttributeValues().get(":u").getN());
+        assertAllValuesUsed(request);
+    }
+
+    @Test
+    public void shouldSeedSummaryNeverRated() {
+        assertTrue(repository.seed("api", null, Collections.emptyList(), oldDate()));
+
+        assertEquals("attribute_not_exists(#api)", updates.get(0).getConditionExpression());
+        assertAllValuesUsed(updates.get(0));
+    }
+
+    @Test
+    public void shouldNotSeedRecentlyRatedApi() {
+        assertFalse(repository.seed("api", null, Collections.singletonList((byte) 3), System.currentTimeMillis()));
+        assertFalse(repository.seed("api", summary(1, 3, System.currentTimeMillis()), Collections.singletonList((byte) 3), oldDate()));
+
+        assertTrue(updates.isEmpty());
+    }
+
+    /**
+     * DynamoDB rejects a request with expression values which are not used.
+     */
+    private static void assertAllValuesUsed(UpdateItemRequest request) {
+        Set<String> tokens = new HashSet<>(Arrays.asList(
+                (request.getUpdateExpression() + " " + request.getConditionExpression()).split("[^\\w:#]+")));
+        for (String value : request.getExpressionAttributeValues().keySet()) {
+            assertTrue(value + " is not used", tokens.contains(value));
+        }
+        for (String name : request.getExpressionAttributeNames().keySet()) {
+            assertTrue(name + " is not used", tokens.contains(name));
+        }
+    }
+
+    private static DynamoDBRatingSummary summary(long count, long sum, long updatedAt) {
+        DynamoDBRatingSummary summary = new DynamoDBRatingSummary();
+        summary.setApi("api");
+        summary.setCount(count);
+        summary.setSum(sum);
+        summary.setUpdatedAt(updatedAt);
+        return summary;
+    }
+
+    private static long oldDate() {
+        return 1_500_000_000_000L;
+    }
+}
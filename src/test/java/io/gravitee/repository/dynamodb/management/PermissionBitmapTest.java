@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.repository.dynamodb.management;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class PermissionBitmapTest {
+
+    @Test
+    public void shouldHavePermissions() {
+        PermissionBitmap bitmap = PermissionBitmap.of(1015, 1104, 3508);
+
+        assertTrue(bitmap.hasPermission(1015));
+        assertTrue(bitmap.hasPermission(1104));
+        assertTrue(bitmap.hasPermission(3508));
+        assertFalse(bitmap.hasPermission(1102));
+        assertFalse(bitmap.hasPermission(3504));
+        assertFalse(bitmap.hasPermission(1204));
+        assertFalse(bitmap.hasPermission(9904));
+        assertFalse(bitmap.hasPermission(-1));
+        assertArrayEquals(new int[]{1015, 1104, 3508}, bitmap.toArray());
+    }
+
+    @Test
+    public void shouldGrantEachActionOfMultiActionGrant() {
+        PermissionBitmap bitmap = PermissionBitmap.of(1015, 1106);
+
+        // create, read, update and delete granted together
+        assertTrue(bitmap.hasPermission(1008));
+        assertTrue(bitmap.hasPermission(1004));
+        assertTrue(bitmap.hasPermission(1002));
+        assertTrue(bitmap.hasPermission(1001));
+        assertTrue(bitmap.hasPermission(1012));
+        // read and update granted, create and delete not
+        assertTrue(bitmap.hasPermission(1104));
+        assertTrue(bitmap.hasPermission(1106));
+        assertFalse(bitmap.hasPermission(1108));
+        assertFalse(bitmap.hasPermission(1105));
+        // the mask alone checks any action
+        assertTrue(bitmap.hasPermission(1100));
+        assertFalse(bitmap.hasPermission(1200));
+    }
+
+    @Test
+    public void shouldFitRoleInFewWords() {
+        int[] permissions = new int[26];
+        for (int i = 0; i < permissions.length; i++) {
+            permissions[i] = 1000 + i * 100 + 15;
+        }
+
+        PermissionBitmap bitmap = PermissionBitmap.of(permissions);
+
+        assertEquals(3 * Long.BYTES, bitmap.toByteBuffer().remaining());
+        assertArrayEquals(permissions, bitmap.toArray());
+    }
+
+    @Test
+    public void shouldBeEmpty() {
+        assertTrue(PermissionBitmap.of().isEmpty());
+        assertTrue(PermissionBitmap.of((int[]) null).isEmpty());
+        assertTrue(PermissionBitmap.of(-1).isEmpty());
+        // a mask without action grants nothing
+        assertTrue(PermissionBitmap.of(1000).isEmpty());
+        assertTrue(PermissionBitmap.of(Collections.<Integer>emptyList()).isEmpty());
+        assertEquals(0, PermissionBitmap.EMPTY.toArray().length);
+    }
+
+    @Test
+    public void shouldBuildSameBitmapFromCollection() {
+        assertEquals(PermissionBitmap.of(1012, 1104), PermissionBitmap.of(Arrays.asList(1104, 1004, 1008, 1004)));
+    }
+
+    @Test
+    public void shouldRoundTripThroughByteBuffer() {
+        PermissionBitmap bitmap = PermissionBitmap.of(1001, 3508);
+
+        ByteBuffer buffer = bitmap.toByteBuffer();
+
+        assertEquals(3 * Long.BYTES, buffer.remaining());
+        assertEquals(bitmap, PermissionBitmap.fromByteBuffer(buffer));
+        // the buffer is not consumed
+        assertEquals(bitmap, PermissionBitmap.fromByteBuffer(buffer));
+    }
+
+    @Test
+    public void shouldOmitTrailingEmptyWords() {
+        PermissionBitmap bitmap = PermissionBitmap.fromByteBuffer(ByteBuffer.allocate(3 * Long.BYTES).putLong(0, 2L));
+
+        assertEquals(Long.BYTES, bitmap.toByteBuffer().remaining());
+        assertNull(PermissionBitmap.fromByteBuffer(ByteBuffer.allocate(2 * Long.BYTES)).toByteBuffer());
+        assertNull(PermissionBitmap.EMPTY.toByteBuffer());
+    }
+
+    @Test
+    public void shouldReadMissingOrTruncatedBufferAsEmpty() {
+        assertTrue(PermissionBitmap.fromByteBuffer(null).isEmpty());
+        assertTrue(PermissionBitmap.fromByteBuffer(ByteBuffer.allocate(Long.BYTES - 1)).isEmpty());
+    }
+
+    @Test
+    public void shouldMergePermissions() {
+        PermissionBitmap merged = PermissionBitmap.of(1004, 1101).or(PermissionBitmap.of(1008, 2002));
+
+        assertArrayEquals(new int[]{1012, 1101, 2002}, merged.toArray());
+        assertEquals(merged, PermissionBitmap.of(1008, 2002).or(PermissionBitmap.of(1004, 1101)));
+        assertSame(merged, merged.or(PermissionBitmap.EMPTY));
+    }
+
+    @Test
+    public void shouldCompareByPermissions() {
+        assertEquals(PermissionBitmap.of(1001), PermissionBitmap.fromByteBuffer(ByteBuffer.allocate(2 * Long.BYTES).putLong(0, 1L << 40)));
+        assertEquals(PermissionBitmap.of(1001).hashCode(), PermissionBitmap.of(Arrays.asList(1001)).hashCode());
+        assertNotEquals(PermissionBitmap.of(1001), PermissionBitmap.of(1002));
+    }
+}